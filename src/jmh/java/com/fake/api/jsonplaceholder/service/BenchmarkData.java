@@ -0,0 +1,32 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.model.Comment;
+import com.fake.api.jsonplaceholder.model.Post;
+
+/**
+ * Deterministic payloads shaped like the jsonplaceholder data.
+ */
+final class BenchmarkData {
+
+    private static final String TEXT = "quia et suscipit suscipit recusandae consequuntur expedita et cum "
+            + "reprehenderit molestiae ut ut quas totam nostrum rerum est autem sunt rem eveniet architecto";
+
+    private BenchmarkData() {
+    }
+
+    static Post[] posts(int size) {
+        Post[] posts = new Post[size];
+        for (int i = 0; i < size; i++) {
+            posts[i] = new Post((long) i + 1, (long) i / 10 + 1, "title " + i + " " + TEXT.substring(0, 40), TEXT);
+        }
+        return posts;
+    }
+
+    static Comment[] comments(int size) {
+        Comment[] comments = new Comment[size];
+        for (int i = 0; i < size; i++) {
+            comments[i] = new Comment((long) i / 5 + 1, (long) i + 1, "name " + i, "user" + i + "@example.com", TEXT);
+        }
+        return comments;
+    }
+}
@@ -0,0 +1,44 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.model.Post;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code combinePosts} against a hand-written field copy, the cost floor of a merge.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+public class MergeBenchmark {
+
+    private final PostsService postsService = new PostsService();
+    private final Post original = BenchmarkData.posts(1)[0];
+    private final Post update = new Post(null, null, "updated title", null);
+
+    @Benchmark
+    public Post combinePosts() {
+        return postsService.combinePosts(original, update);
+    }
+
+    @Benchmark
+    public Post manualCopy() {
+        return new Post(
+                update.getId() != null ? update.getId() : original.getId(),
+                update.getUserId() != null ? update.getUserId() : original.getUserId(),
+                update.getTitle() != null ? update.getTitle() : original.getTitle(),
+                update.getBody() != null ? update.getBody() : original.getBody());
+    }
+}
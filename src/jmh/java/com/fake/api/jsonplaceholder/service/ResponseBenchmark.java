@@ -0,0 +1,76 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeStrategies;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decoding of an upstream response by {@code handleResponse}, and the array to list
+ * conversion {@code getPosts} and {@code getComments} apply to the decoded body.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+public class ResponseBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int size;
+
+    private final PostsService postsService = new PostsService();
+    // The largest size is over the default 256 KB in-memory limit of the codecs
+    private final ExchangeStrategies strategies = ExchangeStrategies.builder()
+            .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(-1))
+            .build();
+
+    private Post[] posts;
+    private String body;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        posts = BenchmarkData.posts(size);
+        body = new ObjectMapper().writeValueAsString(posts);
+    }
+
+    @Benchmark
+    public ResponseEntity<Post[]> handleResponse() {
+        ClientResponse response = ClientResponse.create(HttpStatus.OK, strategies)
+                .header(HttpHeaders.CONTENT_TYPE, MediaType.APPLICATION_JSON_VALUE)
+                .body(body)
+                .build();
+        return postsService.handleResponse(response, Post[].class).block();
+    }
+
+    @Benchmark
+    public List<Post> listOf() {
+        return List.of(posts);
+    }
+
+    @Benchmark
+    public List<Post> arraysAsList() {
+        return Arrays.asList(posts);
+    }
+}
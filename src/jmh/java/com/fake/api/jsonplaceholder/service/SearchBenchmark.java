@@ -0,0 +1,89 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.SearchProperties;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Title search through {@link PostSearchIndex} against the pass-through path it replaces,
+ * one upstream round trip per query to a local stub.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+public class SearchBenchmark {
+
+    private static final int POSTS = 1_000;
+
+    private final PostSearchIndex index = new PostSearchIndex(new SearchProperties());
+    private final MockWebServer mockWebServer = new MockWebServer();
+    private WebClient webClient;
+    private int query;
+
+    @Setup
+    public void setUp() throws IOException {
+        Post[] posts = BenchmarkData.posts(POSTS);
+        index.rebuild(List.of(posts));
+
+        // The stub answers every search with one post
+        String body = new ObjectMapper().writeValueAsString(new Post[]{posts[0]});
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                return new MockResponse()
+                        .setResponseCode(200)
+                        .setBody(body)
+                        .addHeader("Content-Type", "application/json");
+            }
+        });
+        mockWebServer.start();
+        webClient = WebClient.builder().baseUrl(mockWebServer.url("/").toString()).build();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Benchmark
+    public List<Post> index() {
+        return index.search("title " + nextQuery() + " quia", null);
+    }
+
+    @Benchmark
+    public Post[] passThrough() {
+        return webClient.get()
+                .uri("/posts?title={title}", "title " + nextQuery() + " quia")
+                .retrieve()
+                .bodyToMono(Post[].class)
+                .block();
+    }
+
+    private int nextQuery() {
+        query = (query + 1) % POSTS;
+        return query;
+    }
+}
@@ -0,0 +1,84 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ExportProperties;
+import com.fake.api.jsonplaceholder.model.Comment;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON vs XML serialization of the lists written by {@code fetchAndSaveData}. Posts go through
+ * the exporter's own writers; comments, which are not exported, through equally configured mappers.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+public class SerializationBenchmark {
+
+    // The projection most list clients ask for
+    private static final Set<String> ID_TITLE = Set.of("id", "title");
+
+    @Param({"100", "1000", "10000"})
+    int size;
+
+    private final PostsExporter exporter = new PostsExporter(new ExportProperties());
+    private final ObjectMapper jsonMapper = new ObjectMapper()
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+    private final XmlMapper xmlMapper = (XmlMapper) new XmlMapper()
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+
+    private List<Post> posts;
+    private List<Comment> comments;
+
+    @Setup
+    public void setUp() {
+        posts = List.of(BenchmarkData.posts(size));
+        comments = List.of(BenchmarkData.comments(size));
+    }
+
+    @Benchmark
+    public void postsJson() throws IOException {
+        exporter.writeJson(OutputStream.nullOutputStream(), posts, null);
+    }
+
+    @Benchmark
+    public void postsJsonIdTitle() throws IOException {
+        exporter.writeJson(OutputStream.nullOutputStream(), posts, ID_TITLE);
+    }
+
+    @Benchmark
+    public void postsXml() throws IOException {
+        exporter.writeXml(OutputStream.nullOutputStream(), posts, null);
+    }
+
+    @Benchmark
+    public void commentsJson() throws IOException {
+        jsonMapper.writeValue(OutputStream.nullOutputStream(), comments);
+    }
+
+    @Benchmark
+    public void commentsXml() throws IOException {
+        xmlMapper.writeValue(OutputStream.nullOutputStream(), comments);
+    }
+}
@@ -0,0 +1,99 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ExportProperties;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.FileSystemUtils;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Load time of the same posts from the binary snapshot and from the JSON and XML exports.
+ * The file sizes are logged once per trial, when the files are deleted.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(3)
+@Slf4j
+public class SnapshotBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int size;
+
+    // Spring's builders register the parameter names module that Post needs to be read
+    private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+    private final XmlMapper xmlMapper = Jackson2ObjectMapperBuilder.xml().build();
+
+    private Path directory;
+    private PostsSnapshot postsSnapshot;
+    private Path json;
+    private Path xml;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("snapshot-benchmark");
+        ExportProperties properties = new ExportProperties();
+        properties.setDirectory(directory.toString());
+        PostsExporter exporter = new PostsExporter(properties);
+        postsSnapshot = new PostsSnapshot(properties);
+
+        List<Post> posts = List.of(BenchmarkData.posts(size));
+        json = directory.resolve("posts.json");
+        xml = directory.resolve("posts.xml");
+        try (OutputStream out = Files.newOutputStream(json)) {
+            exporter.writeJson(out, posts, null);
+        }
+        try (OutputStream out = Files.newOutputStream(xml)) {
+            exporter.writeXml(out, posts, null);
+        }
+        postsSnapshot.write(posts, List.of(), Instant.now());
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        // Outside the measurement, the sizes do not change between iterations
+        log.info("size={} snapshot={} bytes json={} bytes xml={} bytes", size,
+                Files.size(postsSnapshot.target()), Files.size(json), Files.size(xml));
+        FileSystemUtils.deleteRecursively(directory);
+    }
+
+    @Benchmark
+    public List<Post> loadSnapshot() throws IOException {
+        return postsSnapshot.read().orElseThrow().posts();
+    }
+
+    @Benchmark
+    public Post[] loadJson() throws IOException {
+        return jsonMapper.readValue(json.toFile(), Post[].class);
+    }
+
+    @Benchmark
+    public Post[] loadXml() throws IOException {
+        return xmlMapper.readValue(xml.toFile(), Post[].class);
+    }
+}
@@ -2,8 +2,10 @@ package com.fake.api.jsonplaceholder;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.context.properties.ConfigurationPropertiesScan;
 
 @SpringBootApplication
+@ConfigurationPropertiesScan
 public class JsonplaceholderApplication {
 
 	public static void main(String[] args) {
@@ -0,0 +1,42 @@
+package com.fake.api.jsonplaceholder.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "cache")
+public class CacheProperties {
+
+    private boolean enabled = true;
+
+    // Expired entries are kept this much longer to answer while the upstream is unavailable
+    private Duration staleWindow = Duration.ofMinutes(5);
+
+    // Lists of posts, keyed by userId and title
+    private Spec posts = new Spec(Duration.ofSeconds(30), 1_000);
+
+    // Single posts, keyed by id
+    private Spec post = new Spec(Duration.ofSeconds(60), 10_000);
+
+    // Comments of a post, keyed by post id and commentId
+    private Spec comments = new Spec(Duration.ofSeconds(60), 5_000);
+
+    // Ids the upstream answered 404 for, kept briefly so repeated lookups do not reach it
+    private Spec notFound = new Spec(Duration.ofSeconds(10), 10_000);
+
+    @Data
+    public static class Spec {
+        private Duration ttl;
+        private long maximumSize;
+
+        public Spec() {
+        }
+
+        public Spec(Duration ttl, long maximumSize) {
+            this.ttl = ttl;
+            this.maximumSize = maximumSize;
+        }
+    }
+}
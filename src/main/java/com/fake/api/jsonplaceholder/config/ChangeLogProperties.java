@@ -0,0 +1,23 @@
+package com.fake.api.jsonplaceholder.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "change-log")
+public class ChangeLogProperties {
+
+    // Changes kept, older ones are dropped and their readers told to reload
+    private int capacity = 10_000;
+
+    // Changes returned by one read
+    private int maxBatch = 500;
+
+    // Longest a long-poll waits for a change, below the 30s async request timeout of the servlet stack
+    private Duration maxWait = Duration.ofSeconds(25);
+
+    // Longest a server-sent event stream stays open before it ends and the client reconnects, for the same reason
+    private Duration maxStream = Duration.ofSeconds(25);
+}
@@ -0,0 +1,19 @@
+package com.fake.api.jsonplaceholder.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "error-log")
+public class ErrorLogProperties {
+
+    // Share of unexpected errors considered for logging, the rest are only counted
+    private double sampleRate = 1.0;
+
+    // Errors logged per interval, with their stack trace; the ones over it are only counted
+    private int maxPerInterval = 10;
+
+    private Duration interval = Duration.ofSeconds(1);
+}
@@ -0,0 +1,44 @@
+package com.fake.api.jsonplaceholder.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "export")
+public class ExportProperties {
+
+    // Directory where the export files are written
+    private String directory = ".";
+
+    // Write posts.json.gz and posts.xml.gz instead of plain files
+    private boolean gzip = false;
+
+    private Incremental incremental = new Incremental();
+
+    private Jobs jobs = new Jobs();
+
+    @Data
+    public static class Incremental {
+        // Number of change records appended before the full exports are rewritten
+        private int compactThreshold = 100;
+    }
+
+    @Data
+    public static class Jobs {
+        // Exports written at the same time, later ones wait in the queue
+        private int concurrency = 2;
+
+        // Accepted exports not started yet, later ones are rejected
+        private int queueSize = 20;
+
+        // Posts fetched from the upstream per page
+        private int pageSize = 100;
+
+        // How long a finished export and its files are kept
+        private Duration retention = Duration.ofHours(1);
+
+        private long maximumJobs = 1_000;
+    }
+}
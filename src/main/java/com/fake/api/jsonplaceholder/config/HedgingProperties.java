@@ -0,0 +1,26 @@
+package com.fake.api.jsonplaceholder.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "hedging")
+public class HedgingProperties {
+
+    // Send a second GET when the first one is slower than usual
+    private boolean enabled = false;
+
+    // Latency percentile of recent GETs after which the hedge is sent
+    private double percentile = 0.95;
+
+    // Lower bound of the hedge delay, also used until enough latencies are known
+    private Duration minDelay = Duration.ofMillis(20);
+
+    // Latencies needed before the percentile is trusted
+    private int minSamples = 100;
+
+    // Hedges allowed per GET, 0.05 means at most 5% extra upstream load
+    private double budget = 0.05;
+}
@@ -0,0 +1,35 @@
+package com.fake.api.jsonplaceholder.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "limiter")
+public class LimiterProperties {
+
+    // Bound the upstream calls in flight with a limit adapted to the observed latency
+    private boolean enabled = true;
+
+    private int initialLimit = 20;
+
+    private int minLimit = 2;
+
+    private int maxLimit = 100;
+
+    // Calls waiting for a slot, later ones are rejected at once
+    private int queueSize = 200;
+
+    // Longest wait for a slot before the call is rejected
+    private Duration queueTimeout = Duration.ofSeconds(1);
+
+    // Latency above this multiple of the lowest recent latency means the upstream is queueing
+    private double rttTolerance = 2.0;
+
+    // Factor applied to the limit on queueing, timeouts and server errors
+    private double backoffRatio = 0.9;
+
+    // Samples after which the lowest latency is measured again
+    private int minRttWindow = 500;
+}
@@ -0,0 +1,23 @@
+package com.fake.api.jsonplaceholder.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "replica")
+public class ReplicaProperties {
+
+    // Serve reads from a local copy of all posts and comments
+    private boolean enabled = false;
+
+    // Delay between two bulk loads of the upstream data
+    private Duration refreshInterval = Duration.ofMinutes(5);
+
+    // Older copies are ignored and reads go to the upstream again
+    private Duration maxStaleness = Duration.ofMinutes(15);
+
+    // Save each load as posts.snapshot in the export directory and start from it before the first load
+    private boolean snapshot = true;
+}
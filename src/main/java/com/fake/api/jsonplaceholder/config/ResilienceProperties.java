@@ -0,0 +1,53 @@
+package com.fake.api.jsonplaceholder.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "resilience")
+public class ResilienceProperties {
+
+    // Limit of a single upstream attempt
+    private Duration attemptTimeout = Duration.ofSeconds(3);
+
+    // Limit of a whole call, retries included
+    private Duration deadline = Duration.ofSeconds(5);
+
+    private CircuitBreaker circuitBreaker = new CircuitBreaker();
+
+    private Retry retry = new Retry();
+
+    @Data
+    public static class CircuitBreaker {
+        // Failure percentage of the last calls that opens the circuit
+        private float failureRateThreshold = 50;
+
+        // Number of last calls the failure rate is computed on
+        private int slidingWindowSize = 20;
+
+        // Calls needed before the failure rate is computed
+        private int minimumNumberOfCalls = 10;
+
+        // Time the circuit stays open before letting probe calls through
+        private Duration waitDurationInOpenState = Duration.ofSeconds(10);
+
+        // Probe calls allowed while half-open
+        private int permittedNumberOfCallsInHalfOpenState = 3;
+    }
+
+    @Data
+    public static class Retry {
+        // Attempts of a GET, the first one included
+        private int maxAttempts = 3;
+
+        // Backoff before the first retry, doubled on each one
+        private Duration backoff = Duration.ofMillis(100);
+
+        private Duration maxBackoff = Duration.ofSeconds(1);
+
+        // Random share of the backoff added or removed
+        private double jitter = 0.5;
+    }
+}
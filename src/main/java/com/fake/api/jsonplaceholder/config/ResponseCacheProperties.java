@@ -0,0 +1,24 @@
+package com.fake.api.jsonplaceholder.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "response-cache")
+public class ResponseCacheProperties {
+
+    // Keep the encoded bodies of GET responses and answer If-None-Match without calling the service
+    private boolean enabled = true;
+
+    // Encoded bodies are dropped after this, and on every write
+    private Duration ttl = Duration.ofSeconds(30);
+
+    // Number of encoded bodies, one per query and format
+    private long maximumSize = 1_000;
+
+    // Smaller bodies are not worth a gzip copy
+    private DataSize gzipMinSize = DataSize.ofKilobytes(1);
+}
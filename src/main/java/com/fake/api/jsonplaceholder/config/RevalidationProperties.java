@@ -0,0 +1,19 @@
+package com.fake.api.jsonplaceholder.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+@Data
+@ConfigurationProperties(prefix = "upstream.revalidation")
+public class RevalidationProperties {
+
+    // Send If-None-Match on upstream GETs and reuse the last body on 304
+    private boolean enabled = true;
+
+    // Number of upstream bodies kept, one per URI
+    private long maximumSize = 1_000;
+
+    // Larger bodies are passed through without being kept
+    private DataSize maxBodySize = DataSize.ofMegabytes(1);
+}
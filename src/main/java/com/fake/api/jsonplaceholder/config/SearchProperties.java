@@ -0,0 +1,17 @@
+package com.fake.api.jsonplaceholder.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "search")
+public class SearchProperties {
+
+    // Index post bodies as well as titles
+    private boolean includeBody = false;
+
+    // The index is rebuilt from the full list of posts once it gets older than this
+    private Duration maxAge = Duration.ofMinutes(15);
+}
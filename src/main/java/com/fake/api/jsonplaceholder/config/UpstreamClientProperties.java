@@ -0,0 +1,27 @@
+package com.fake.api.jsonplaceholder.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "upstream.client")
+public class UpstreamClientProperties {
+
+    // Connection pool
+    private int maxConnections = 100;
+    private int pendingAcquireMaxCount = 500;
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(5);
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+    private Duration evictInBackground = Duration.ofSeconds(30);
+    private boolean keepAlive = true;
+
+    // Timeouts
+    private Duration connectTimeout = Duration.ofSeconds(2);
+    private Duration readTimeout = Duration.ofSeconds(5);
+    private Duration responseTimeout = Duration.ofSeconds(5);
+
+    // Negotiate HTTP/2 when the upstream supports it, falling back to HTTP/1.1
+    private boolean http2 = false;
+}
@@ -1,13 +1,68 @@
 package com.fake.api.jsonplaceholder.config;
 
+import com.fake.api.jsonplaceholder.service.UpstreamMetrics;
+import com.fake.api.jsonplaceholder.service.UpstreamRevalidation;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.util.concurrent.TimeUnit;
 
 @Configuration
 public class WebClientConfiguration {
+
+    private static final String READ_TIMEOUT_HANDLER = "upstreamReadTimeout";
+
+    @Value("${base.url}")
+    private String BASE_URL;
+
+    /**
+     * Connection pool shared by every upstream call. With metrics enabled Reactor Netty
+     * publishes the active, idle and pending connection gauges under
+     * {@code reactor.netty.connection.provider.*}.
+     */
+    @Bean(destroyMethod = "dispose")
+    public ConnectionProvider upstreamConnectionProvider(UpstreamClientProperties properties) {
+        return ConnectionProvider.builder("jsonplaceholder")
+                .maxConnections(properties.getMaxConnections())
+                .pendingAcquireMaxCount(properties.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(properties.getPendingAcquireTimeout())
+                .maxIdleTime(properties.getMaxIdleTime())
+                .evictInBackground(properties.getEvictInBackground())
+                .metrics(true)
+                .build();
+    }
+
     @Bean
-    public WebClient.Builder webClientBuilder() {
-        return WebClient.builder();
+    public WebClient webClient(WebClient.Builder webClientBuilder, ConnectionProvider upstreamConnectionProvider,
+                               UpstreamClientProperties properties, UpstreamMetrics upstreamMetrics,
+                               UpstreamRevalidation upstreamRevalidation) {
+        HttpClient httpClient = HttpClient.create(upstreamConnectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) properties.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, properties.isKeepAlive())
+                .keepAlive(properties.isKeepAlive())
+                .responseTimeout(properties.getResponseTimeout())
+                // Added to the connection of each request (the stream with HTTP/2), removed when it goes back to the pool
+                .doOnRequest((request, connection) -> connection.addHandlerLast(READ_TIMEOUT_HANDLER,
+                        new ReadTimeoutHandler(properties.getReadTimeout().toMillis(), TimeUnit.MILLISECONDS)));
+
+        if (properties.isHttp2()) {
+            httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+        }
+
+        return webClientBuilder
+                .baseUrl(BASE_URL)
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                // Metrics see what the upstream answered, a 304 before it is turned back into a 200
+                .filter(upstreamMetrics)
+                .filter(upstreamRevalidation)
+                .build();
     }
 }
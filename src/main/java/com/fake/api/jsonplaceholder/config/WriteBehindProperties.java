@@ -0,0 +1,25 @@
+package com.fake.api.jsonplaceholder.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties(prefix = "write-behind")
+public class WriteBehindProperties {
+
+    // Accepted writes not yet sent, later ones are rejected
+    private int queueSize = 1_000;
+
+    // Writes sent to the upstream at the same time
+    private int concurrency = 4;
+
+    // How long the status of an operation can be polled
+    private Duration operationTtl = Duration.ofMinutes(10);
+
+    // How long queued writes are still sent on shutdown
+    private Duration shutdownTimeout = Duration.ofSeconds(10);
+
+    private long maximumOperations = 100_000;
+}
@@ -1,20 +1,31 @@
 package com.fake.api.jsonplaceholder.controller;
 
+import com.fake.api.jsonplaceholder.exception.ErrorStatus;
 import com.fake.api.jsonplaceholder.exception.NotFoundException;
+import com.fake.api.jsonplaceholder.exception.TooManyRequestsException;
+import com.fake.api.jsonplaceholder.exception.UpstreamException;
+import com.fake.api.jsonplaceholder.service.ErrorLogLimiter;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
 import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
-import org.springframework.web.bind.annotation.ResponseBody;
-import org.springframework.web.bind.annotation.ResponseStatus;
-import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
+import org.springframework.web.util.DisconnectedClientHelper;
+
+import java.util.concurrent.TimeoutException;
 
 @ControllerAdvice
 @Slf4j
 public class ErrorHandler {
 
+    // Errors repeated by every request, such as an upstream failure, must not flood the log
+    @Autowired
+    private ErrorLogLimiter errorLogLimiter;
+
     @AllArgsConstructor
     @Getter
     private class ErrorMessage {
@@ -22,18 +33,60 @@ public class ErrorHandler {
     }
 
     @ExceptionHandler(value = { NotFoundException.class })
-    @ResponseStatus(value = HttpStatus.NOT_FOUND)
-    @ResponseBody
-    public ErrorMessage onNotFoundException(RuntimeException ex, WebRequest request) {
+    public ResponseEntity<ErrorMessage> onNotFoundException(RuntimeException ex) {
+
+        return ResponseEntity.status(ErrorStatus.of(ex)).body(new ErrorMessage(ex.getMessage()));
+    }
+
+    @ExceptionHandler(value = { IllegalArgumentException.class })
+    public ResponseEntity<ErrorMessage> onIllegalArgumentException(RuntimeException ex) {
+
+        return ResponseEntity.status(ErrorStatus.of(ex)).body(new ErrorMessage(ex.getMessage()));
+    }
+
+    @ExceptionHandler(value = { TooManyRequestsException.class })
+    public ResponseEntity<ErrorMessage> onTooManyRequestsException(RuntimeException ex) {
+
+        return ResponseEntity.status(ErrorStatus.of(ex)).body(new ErrorMessage("Demasiadas peticiones al servicio remoto, inténtelo más tarde"));
+    }
 
-        return new ErrorMessage(ex.getMessage());
+    @ExceptionHandler(value = { UpstreamException.class })
+    public ResponseEntity<ErrorMessage> onUpstreamException(RuntimeException ex) {
+        long suppressed = errorLogLimiter.acquire();
+        if (suppressed >= 0) {
+            log.warn("Error del servicio remoto: {} ({} omitidos)", ex.getLocalizedMessage(), suppressed);
+        }
+        return ResponseEntity.status(ErrorStatus.of(ex)).body(new ErrorMessage(String.format("Error del servicio remoto: %s", ex.getLocalizedMessage())));
+    }
+
+    @ExceptionHandler(value = { CallNotPermittedException.class })
+    public ResponseEntity<ErrorMessage> onCallNotPermittedException(RuntimeException ex) {
+
+        return ResponseEntity.status(ErrorStatus.of(ex)).body(new ErrorMessage("Servicio remoto no disponible"));
+    }
+
+    @ExceptionHandler(value = { TimeoutException.class })
+    public ResponseEntity<ErrorMessage> onTimeoutException(Exception ex) {
+
+        return ResponseEntity.status(ErrorStatus.of(ex)).body(new ErrorMessage("El servicio remoto no respondió a tiempo"));
     }
 
     @ExceptionHandler(value = { Exception.class })
-    @ResponseStatus(value = HttpStatus.INTERNAL_SERVER_ERROR)
-    @ResponseBody
-    public ErrorMessage unexpectedException(RuntimeException ex, WebRequest request) {
-        log.error("Error inesperado: {}",ex.getLocalizedMessage(),ex);
-        return new ErrorMessage(String.format("Error inesperado: %s", ex.getLocalizedMessage()));
+    public ResponseEntity<ErrorMessage> unexpectedException(Exception ex) {
+        if (isClientDisconnected(ex)) {
+            // Nobody is left to answer, and the response may already be committed
+            log.debug("Cliente desconectado: {}", ex.toString());
+            return null;
+        }
+        long suppressed = errorLogLimiter.acquire();
+        if (suppressed >= 0) {
+            log.error("Error inesperado: {} ({} omitidos)", ex.getLocalizedMessage(), suppressed, ex);
+        }
+        return ResponseEntity.status(ErrorStatus.of(ex))
+                .body(new ErrorMessage(String.format("Error inesperado: %s", ex.getLocalizedMessage())));
+    }
+
+    private static boolean isClientDisconnected(Exception ex) {
+        return ex instanceof AsyncRequestNotUsableException || DisconnectedClientHelper.isClientDisconnectedException(ex);
     }
 }
@@ -1,17 +1,46 @@
 package com.fake.api.jsonplaceholder.controller;
 
+import com.fake.api.jsonplaceholder.model.BatchItem;
+import com.fake.api.jsonplaceholder.model.ChangeFeed;
 import com.fake.api.jsonplaceholder.model.Comment;
+import com.fake.api.jsonplaceholder.model.ExportDelta;
+import com.fake.api.jsonplaceholder.model.ExportJob;
+import com.fake.api.jsonplaceholder.model.ExportRequest;
 import com.fake.api.jsonplaceholder.model.Post;
+import com.fake.api.jsonplaceholder.model.PostChange;
+import com.fake.api.jsonplaceholder.model.PostWithComments;
+import com.fake.api.jsonplaceholder.model.WriteOperation;
+import com.fake.api.jsonplaceholder.service.ChangeLog;
+import com.fake.api.jsonplaceholder.service.EncodedResponseCache;
+import com.fake.api.jsonplaceholder.service.ExportJobs;
+import com.fake.api.jsonplaceholder.service.FieldProjection;
 import com.fake.api.jsonplaceholder.service.PostsService;
+import com.fake.api.jsonplaceholder.service.WriteBehindQueue;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.net.URI;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/")
@@ -22,59 +51,273 @@ public class PostsController {
     @Autowired
     private PostsService service;
 
-    @Operation(summary = "Retrieve posts from the API. You can filter by userId or title.")
+    @Autowired
+    private WriteBehindQueue writeBehindQueue;
+
+    // GETs of posts and comments are answered from already encoded bodies when possible
+    @Autowired
+    private EncodedResponseCache encodedResponseCache;
+
+    @Autowired
+    private ChangeLog changeLog;
+
+    @Autowired
+    private ExportJobs exportJobs;
+
+    @Operation(summary = "Retrieve posts from the API. You can filter by userId or title, or search words of the title with search.")
+    @ApiResponse(responseCode = "200", content = @Content(array = @ArraySchema(schema = @Schema(implementation = Post.class))))
     @GetMapping("/posts")
-    public ResponseEntity<List<Post>> getPosts(
+    public Mono<ResponseEntity<byte[]>> getPosts(
             @RequestParam(value = "userId", required = false) Long userId,
-            @RequestParam(value = "title", required = false) String title) {
-        return service.getPosts(userId, title);
+            @RequestParam(value = "title", required = false) String title,
+            @Parameter(description = "Words that must all appear in the title, a trailing * matches a prefix", example = "qui est*")
+            @RequestParam(value = "search", required = false) String search,
+            @Parameter(description = "Comma separated properties to return, all of them when absent", example = "id,title")
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader HttpHeaders headers) {
+        String query = "posts?userId=" + userId + "&title=" + title + "&search=" + search;
+        return encodedResponseCache.serve(query, headers, Post.class, FieldProjection.parse(fields, Post.class), () -> search != null
+                ? service.searchPosts(search, userId, title)
+                : service.getPosts(userId, title));
+    }
+
+    @Operation(summary = "Retrieve posts from the API with their comments nested when embed=comments. You can filter by userId or title.")
+    @ApiResponse(responseCode = "200", content = @Content(array = @ArraySchema(schema = @Schema(implementation = PostWithComments.class))))
+    @GetMapping(value = "/posts", params = "embed=comments")
+    public Mono<ResponseEntity<byte[]>> getPostsWithComments(
+            @RequestParam(value = "userId", required = false) Long userId,
+            @RequestParam(value = "title", required = false) String title,
+            @Parameter(description = "Comma separated properties of the posts to return, all of them when absent; comments are returned whole", example = "id,title")
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader HttpHeaders headers) {
+        String query = "posts?userId=" + userId + "&title=" + title + "&embed=comments";
+        return encodedResponseCache.serve(query, headers, Post.class, FieldProjection.parse(fields, Post.class),
+                () -> service.getPostsWithComments(userId, title));
+    }
+
+    @Operation(summary = "Stream posts from the API as newline-delimited JSON. You can filter by userId or title.")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Post.class)))
+    @GetMapping(value = "/posts", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Object> streamPosts(
+            @RequestParam(value = "userId", required = false) Long userId,
+            @RequestParam(value = "title", required = false) String title,
+            @Parameter(description = "Comma separated properties to return, all of them when absent", example = "id,title")
+            @RequestParam(value = "fields", required = false) String fields) {
+        return service.streamPosts(userId, title).map(FieldProjection.projector(FieldProjection.parse(fields, Post.class)));
+    }
+
+    @Operation(summary = "Stream posts from the API as newline-delimited JSON when stream=true.")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Post.class)))
+    @GetMapping(value = "/posts", params = "stream=true", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Object> streamPostsByFlag(
+            @RequestParam(value = "userId", required = false) Long userId,
+            @RequestParam(value = "title", required = false) String title,
+            @Parameter(description = "Comma separated properties to return, all of them when absent", example = "id,title")
+            @RequestParam(value = "fields", required = false) String fields) {
+        return service.streamPosts(userId, title).map(FieldProjection.projector(FieldProjection.parse(fields, Post.class)));
+    }
+
+    @Operation(summary = "Retrieve several posts from the API by Id in one call.")
+    @GetMapping("/posts/batch")
+    public Mono<ResponseEntity<List<BatchItem>>> getPostsBatch(
+            @Parameter(description = "Comma separated IDs of the posts", required = true, example = "1,2,3")
+            @RequestParam("ids") List<String> ids) {
+        return service.getPostsBatch(ids);
+    }
+
+    @Operation(summary = "Retrieve the changes made to posts after the sequence number since. With wait, waits that many seconds for a change when there is none yet.")
+    @GetMapping("/posts/changes")
+    public Mono<ResponseEntity<ChangeFeed>> getChanges(
+            @Parameter(description = "Sequence number of the last change already seen, 0 for all of them", example = "0")
+            @RequestParam(value = "since", defaultValue = "0") long since,
+            @Parameter(description = "Seconds to wait for a change when there is none after since", example = "30")
+            @RequestParam(value = "wait", defaultValue = "0") long wait) {
+        return changeLog.poll(since, Duration.ofSeconds(wait)).map(ResponseEntity::ok);
+    }
+
+    @Operation(summary = "Stream the changes made to posts after since as server-sent events, then each new one as it is made.")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = PostChange.class)))
+    @GetMapping(value = "/posts/changes", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<Flux<ServerSentEvent<Object>>> streamChanges(
+            @Parameter(description = "Sequence number of the last change already seen, 0 for all of them", example = "0")
+            @RequestParam(value = "since", defaultValue = "0") long since,
+            @RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        // A reconnecting EventSource resumes from the last event it received
+        Flux<ServerSentEvent<Object>> events = changeLog.follow(lastEventId != null ? lastEventId : since).concatMapIterable(feed -> feed.isReset()
+                ? List.of(ServerSentEvent.builder().id(String.valueOf(feed.getLastSeq())).event("reset").data(feed).build())
+                : feed.getChanges().stream()
+                        .map(change -> ServerSentEvent.builder().id(String.valueOf(change.getSeq())).event("change").data(change).build())
+                        .toList())
+                // Once the first event is sent the status is committed, an error can only end the stream
+                .onErrorResume(e -> {
+                    log.warn("Change stream ended by an error: {}", e.toString());
+                    return Flux.empty();
+                });
+        return ResponseEntity.ok().contentType(MediaType.TEXT_EVENT_STREAM).body(events);
     }
 
     @Operation(summary = "Retrieve posts from the API by Id.")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Post.class)))
     @GetMapping("posts/{id}")
-    public ResponseEntity<Post> getPost(
+    public Mono<ResponseEntity<byte[]>> getPost(
+            @Parameter(description = "ID of the post", required = true, schema = @Schema(type = "integer"))
+            @PathVariable String id,
+            @Parameter(description = "Comma separated properties to return, all of them when absent", example = "id,title")
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader HttpHeaders headers){
+        return encodedResponseCache.serve("posts/" + id, headers, Post.class, FieldProjection.parse(fields, Post.class), () -> service.getPost(id));
+    }
+
+    @Operation(summary = "Retrieve a post from the API by Id with its comments nested when embed=comments.")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = PostWithComments.class)))
+    @GetMapping(value = "posts/{id}", params = "embed=comments")
+    public Mono<ResponseEntity<byte[]>> getPostWithComments(
             @Parameter(description = "ID of the post", required = true, schema = @Schema(type = "integer"))
-            @PathVariable String id){
-        return service.getPost(id);
+            @PathVariable String id,
+            @Parameter(description = "Comma separated properties of the post to return, all of them when absent; comments are returned whole", example = "id,title")
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader HttpHeaders headers){
+        return encodedResponseCache.serve("posts/" + id + "?embed=comments", headers, Post.class, FieldProjection.parse(fields, Post.class),
+                () -> service.getPostWithComments(id));
     }
 
-    @Operation(summary = "Fetch data from API and save it as JSON and XML. You can filter by userId or title.")
+    @Operation(summary = "Fetch data from API and save it as JSON and XML. You can filter by userId or title, and save only some fields.")
     @GetMapping("/fetch-and-save")
-    public ResponseEntity<List<Post>> fetchAndSaveData(
+    public Mono<ResponseEntity<List<Post>>> fetchAndSaveData(
             @RequestParam(value = "userId", required = false) Long userId,
-            @RequestParam(value = "title", required = false) String title) {
-        return service.fetchAndSaveData(userId, title);
+            @RequestParam(value = "title", required = false) String title,
+            @Parameter(description = "Comma separated properties to save, all of them when absent", example = "id,title")
+            @RequestParam(value = "fields", required = false) String fields) {
+        return service.fetchAndSaveData(userId, title, FieldProjection.parse(fields, Post.class));
+    }
+
+    @Operation(summary = "Fetch all posts from the API and save only what changed since the previous run.")
+    @GetMapping(value = "/fetch-and-save", params = "incremental=true")
+    public Mono<ResponseEntity<ExportDelta>> fetchAndSaveChanges() {
+        return service.fetchAndSaveChanges();
+    }
+
+    @Operation(summary = "Start an export of posts in the background, returns the export to poll")
+    @PostMapping("exports")
+    public Mono<ResponseEntity<ExportJob>> createExport(@RequestBody ExportRequest request){
+        return Mono.fromSupplier(() -> exportJobs.submit(request)).map(job -> ResponseEntity.accepted()
+                .location(URI.create("/exports/" + job.getId()))
+                .body(job));
+    }
+
+    @Operation(summary = "Retrieve the status and progress of an export")
+    @GetMapping("exports/{id}")
+    public Mono<ResponseEntity<ExportJob>> getExport(@PathVariable String id){
+        return Mono.fromSupplier(() -> ResponseEntity.ok(exportJobs.getJob(id)));
+    }
+
+    @Operation(summary = "Download a file of a finished export, in the first requested format unless format is given")
+    @GetMapping("exports/{id}/file")
+    public Mono<ResponseEntity<Resource>> getExportFile(
+            @PathVariable String id,
+            @RequestParam(value = "format", required = false) ExportJob.Format format){
+        return Mono.fromSupplier(() -> {
+            Path file = exportJobs.getFile(id, format);
+            ExportJob.Format fileFormat = format != null ? format : exportJobs.getJob(id).getFormats().get(0);
+            boolean gzip = file.getFileName().toString().endsWith(".gz");
+            // Reactor Netty sends a file resource with zero-copy transfer, the servlet stack streams it
+            return ResponseEntity.ok()
+                    .contentType(MediaType.parseMediaType(gzip ? "application/gzip" : fileFormat.getMediaType()))
+                    .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                            .filename(file.getFileName().toString())
+                            .build()
+                            .toString())
+                    .body(new FileSystemResource(file));
+        });
     }
 
     @Operation(summary = "Retrieve comments from the API related to Posts. You can filter by commentId.")
+    @ApiResponse(responseCode = "200", content = @Content(array = @ArraySchema(schema = @Schema(implementation = Comment.class))))
     @GetMapping("/posts/{id}/comments")
-    public ResponseEntity<List<Comment>> getComments(
+    public Mono<ResponseEntity<byte[]>> getComments(
+            @PathVariable String id,
+            @RequestParam(value = "commentId", required = false) Long commentId,
+            @Parameter(description = "Comma separated properties to return, all of them when absent", example = "id,title")
+            @RequestParam(value = "fields", required = false) String fields,
+            @RequestHeader HttpHeaders headers){
+        String query = "posts/" + id + "/comments?commentId=" + commentId;
+        return encodedResponseCache.serve(query, headers, Comment.class, FieldProjection.parse(fields, Comment.class),
+                () -> service.getComments(id, commentId));
+    }
+
+    @Operation(summary = "Stream comments of a post as newline-delimited JSON. You can filter by commentId.")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Comment.class)))
+    @GetMapping(value = "/posts/{id}/comments", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Object> streamComments(
             @PathVariable String id,
-            @RequestParam(value = "commentId", required = false) Long commentId){
-        return service.getComments(id, commentId);
+            @RequestParam(value = "commentId", required = false) Long commentId,
+            @Parameter(description = "Comma separated properties to return, all of them when absent", example = "id,title")
+            @RequestParam(value = "fields", required = false) String fields){
+        return service.streamComments(id, commentId).map(FieldProjection.projector(FieldProjection.parse(fields, Comment.class)));
+    }
+
+    @Operation(summary = "Stream comments of a post as newline-delimited JSON when stream=true.")
+    @ApiResponse(responseCode = "200", content = @Content(schema = @Schema(implementation = Comment.class)))
+    @GetMapping(value = "/posts/{id}/comments", params = "stream=true", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<Object> streamCommentsByFlag(
+            @PathVariable String id,
+            @RequestParam(value = "commentId", required = false) Long commentId,
+            @Parameter(description = "Comma separated properties to return, all of them when absent", example = "id,title")
+            @RequestParam(value = "fields", required = false) String fields){
+        return service.streamComments(id, commentId).map(FieldProjection.projector(FieldProjection.parse(fields, Comment.class)));
     }
 
     @Operation(summary = "Create a new post")
     @PostMapping("posts")
-    public ResponseEntity<Post> createPost(@RequestBody Post post){
+    public Mono<ResponseEntity<Post>> createPost(@RequestBody Post post){
         return service.createPost(post);
     }
 
+    @Operation(summary = "Queue the creation of a post when async=true, returns the operation to poll")
+    @PostMapping(value = "posts", params = "async=true")
+    public Mono<ResponseEntity<WriteOperation>> createPostAsync(@RequestBody Post post){
+        return accepted(() -> writeBehindQueue.submit(WriteOperation.Type.CREATE, null, post));
+    }
+
     @Operation(summary = "Update a post by Id")
     @PutMapping("posts/{id}")
-    public ResponseEntity<Post> updatePost(@PathVariable String id, @RequestBody Post post){
+    public Mono<ResponseEntity<Post>> updatePost(@PathVariable String id, @RequestBody Post post){
         return service.updatePost(id, post);
     }
 
+    @Operation(summary = "Queue the update of a post by Id when async=true, returns the operation to poll")
+    @PutMapping(value = "posts/{id}", params = "async=true")
+    public Mono<ResponseEntity<WriteOperation>> updatePostAsync(@PathVariable String id, @RequestBody Post post){
+        return accepted(() -> writeBehindQueue.submit(WriteOperation.Type.UPDATE, id, post));
+    }
+
     @Operation(summary = "Patch a post by Id")
     @PatchMapping("posts/{id}")
-    public ResponseEntity<Post> patchPost(@PathVariable String id, @RequestBody Post post){
+    public Mono<ResponseEntity<Post>> patchPost(@PathVariable String id, @RequestBody Post post){
         return service.patchPost(id, post);
     }
 
     @Operation(summary = "Delete a post by Id")
     @DeleteMapping("posts/{id}")
-    public ResponseEntity<Void> deletePost(@PathVariable String id){
+    public Mono<ResponseEntity<Void>> deletePost(@PathVariable String id){
         return service.deletePost(id);
     }
+
+    @Operation(summary = "Queue the deletion of a post by Id when async=true, returns the operation to poll")
+    @DeleteMapping(value = "posts/{id}", params = "async=true")
+    public Mono<ResponseEntity<WriteOperation>> deletePostAsync(@PathVariable String id){
+        return accepted(() -> writeBehindQueue.submit(WriteOperation.Type.DELETE, id, null));
+    }
+
+    @Operation(summary = "Retrieve the status of a queued write")
+    @GetMapping("operations/{id}")
+    public Mono<ResponseEntity<WriteOperation>> getOperation(@PathVariable String id){
+        return Mono.fromSupplier(() -> ResponseEntity.ok(writeBehindQueue.getOperation(id)));
+    }
+
+    private Mono<ResponseEntity<WriteOperation>> accepted(Supplier<WriteOperation> submit) {
+        return Mono.fromSupplier(submit).map(operation -> ResponseEntity.accepted()
+                .location(URI.create("/operations/" + operation.getId()))
+                .body(operation));
+    }
 }
@@ -0,0 +1,38 @@
+package com.fake.api.jsonplaceholder.exception;
+
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import org.springframework.http.HttpStatus;
+
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Status answered for each error, shared by the error handler and the items of a batch read
+ * so that a post fails the same way alone or inside a batch.
+ */
+public final class ErrorStatus {
+
+    private ErrorStatus() {
+    }
+
+    public static HttpStatus of(Throwable error) {
+        if (error instanceof NotFoundException) {
+            return HttpStatus.NOT_FOUND;
+        }
+        if (error instanceof IllegalArgumentException) {
+            return HttpStatus.BAD_REQUEST;
+        }
+        if (error instanceof TooManyRequestsException) {
+            return HttpStatus.TOO_MANY_REQUESTS;
+        }
+        if (error instanceof UpstreamException) {
+            return HttpStatus.BAD_GATEWAY;
+        }
+        if (error instanceof CallNotPermittedException) {
+            return HttpStatus.SERVICE_UNAVAILABLE;
+        }
+        if (error instanceof TimeoutException) {
+            return HttpStatus.GATEWAY_TIMEOUT;
+        }
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+}
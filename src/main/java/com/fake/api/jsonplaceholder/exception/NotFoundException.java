@@ -1,20 +1,25 @@
 package com.fake.api.jsonplaceholder.exception;
 
+/**
+ * Stackless by default: it is an expected answer, raised for every unknown id, and filling in
+ * the stack trace would be most of its cost.
+ */
 public class NotFoundException extends RuntimeException {
 
     public NotFoundException() {
+        super(null, null, true, false);
     }
 
     public NotFoundException(String message) {
-        super(message);
+        super(message, null, true, false);
     }
 
     public NotFoundException(Throwable cause) {
-        super(cause);
+        super(cause == null ? null : cause.toString(), cause, true, false);
     }
 
     public NotFoundException(String message, Throwable cause) {
-        super(message, cause);
+        super(message, cause, true, false);
     }
 
     public NotFoundException(String message, Throwable cause, boolean enableSuppression, boolean writableStackTrace) {
@@ -0,0 +1,12 @@
+package com.fake.api.jsonplaceholder.exception;
+
+/**
+ * Stackless, it is raised on the rejection path while the service is overloaded.
+ */
+public class TooManyRequestsException extends RuntimeException {
+
+    public TooManyRequestsException(String message) {
+        super(message, null, true, false);
+    }
+
+}
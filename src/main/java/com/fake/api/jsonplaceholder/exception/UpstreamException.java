@@ -0,0 +1,20 @@
+package com.fake.api.jsonplaceholder.exception;
+
+/**
+ * The upstream answered with a server error; counts as a failure for the circuit breaker
+ * and may be retried on idempotent calls. Stackless, the status says all there is to know.
+ */
+public class UpstreamException extends RuntimeException {
+
+    private final int status;
+
+    public UpstreamException(String message, int status) {
+        super(message, null, true, false);
+        this.status = status;
+    }
+
+    public int getStatus() {
+        return status;
+    }
+
+}
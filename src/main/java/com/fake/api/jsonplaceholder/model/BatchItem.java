@@ -0,0 +1,20 @@
+package com.fake.api.jsonplaceholder.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class BatchItem {
+    @Schema(description = "Requested post identifier", example = "1")
+    private String id;
+    @Schema(description = "HTTP status of this item", example = "200")
+    private int status;
+    @Schema(description = "The post, when it was found")
+    private Post post;
+    @Schema(description = "Error message, when the post could not be retrieved", example = "Post not found")
+    private String error;
+}
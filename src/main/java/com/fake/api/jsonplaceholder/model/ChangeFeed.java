@@ -0,0 +1,18 @@
+package com.fake.api.jsonplaceholder.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class ChangeFeed {
+    @Schema(description = "Changes after the requested sequence number, oldest first")
+    private List<PostChange> changes;
+    @Schema(description = "Sequence number to send as since in the next call", example = "42")
+    private long lastSeq;
+    @Schema(description = "Whether changes after since are no longer available; reload the posts, then continue from lastSeq", example = "false")
+    private boolean reset;
+}
@@ -0,0 +1,20 @@
+package com.fake.api.jsonplaceholder.model;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+public class ExportDelta {
+    @Schema(description = "Posts not present in the previous snapshot", example = "1")
+    private int added;
+    @Schema(description = "Posts whose content changed since the previous snapshot", example = "2")
+    private int changed;
+    @Schema(description = "Posts of the previous snapshot that no longer exist", example = "0")
+    private int removed;
+    @Schema(description = "Posts whose content did not change", example = "97")
+    private int unchanged;
+    @Schema(description = "Whether the full JSON and XML exports were rewritten", example = "false")
+    private boolean compacted;
+}
@@ -0,0 +1,61 @@
+package com.fake.api.jsonplaceholder.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ExportJob {
+
+    public enum Format {
+        JSON("json", "application/json"),
+        XML("xml", "application/xml"),
+        NDJSON("ndjson", "application/x-ndjson"),
+        CSV("csv", "text/csv");
+
+        private final String extension;
+        private final String mediaType;
+
+        Format(String extension, String mediaType) {
+            this.extension = extension;
+            this.mediaType = mediaType;
+        }
+
+        public String getExtension() {
+            return extension;
+        }
+
+        public String getMediaType() {
+            return mediaType;
+        }
+    }
+
+    public enum Compression { NONE, GZIP }
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    @Schema(description = "Export identifier", example = "5f0c6a8e-3b9b-4c1e-9a55-0a6f3c2b7d41")
+    private String id;
+    @Schema(description = "Progress of the export", example = "RUNNING")
+    private Status status;
+    @Schema(description = "Formats being written, one file each")
+    private List<Format> formats;
+    @Schema(description = "Compression of the files", example = "NONE")
+    private Compression compression;
+    @Schema(description = "Posts written so far", example = "300")
+    private long recordsWritten;
+    @Schema(description = "Bytes written to disk so far, over all files", example = "81920")
+    private long bytesWritten;
+    @Schema(description = "When the export was accepted", example = "2024-06-01T12:00:00Z")
+    private Instant createdAt;
+    @Schema(description = "When the export finished", example = "2024-06-01T12:00:05Z")
+    private Instant finishedAt;
+    @Schema(description = "Error message, when the export failed", example = "Server error")
+    private String error;
+}
@@ -0,0 +1,21 @@
+package com.fake.api.jsonplaceholder.model;
+
+import io.swagger.v3.oas.annotations.media.ArraySchema;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class ExportRequest {
+    @Schema(description = "Only export the posts of this user", example = "1")
+    private Long userId;
+    @Schema(description = "Only export the posts with this title")
+    private String title;
+    @ArraySchema(arraySchema = @Schema(description = "Formats to write, one file each; JSON when empty", example = "[\"JSON\", \"CSV\"]"))
+    private List<ExportJob.Format> formats;
+    @Schema(description = "Compression of the files", example = "GZIP")
+    private ExportJob.Compression compression = ExportJob.Compression.NONE;
+    @Schema(description = "Comma separated properties to write, all of them when absent", example = "id,title")
+    private String fields;
+}
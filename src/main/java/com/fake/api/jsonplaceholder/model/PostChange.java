@@ -0,0 +1,31 @@
+package com.fake.api.jsonplaceholder.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PostChange {
+
+    public enum Type { CREATED, UPDATED, DELETED }
+
+    public enum Source { API, UPSTREAM }
+
+    @Schema(description = "Sequence number of the change, increasing by one per change", example = "42")
+    private long seq;
+    @Schema(description = "Kind of change", example = "UPDATED")
+    private Type type;
+    @Schema(description = "API for writes made through this service, UPSTREAM for differences found when reloading", example = "API")
+    private Source source;
+    @Schema(description = "Identifier of the post", example = "1")
+    private Long postId;
+    @Schema(description = "The post after the change, absent for deletions")
+    private Post post;
+    @Schema(description = "When the change was recorded", example = "2024-06-01T12:00:00Z")
+    private Instant at;
+}
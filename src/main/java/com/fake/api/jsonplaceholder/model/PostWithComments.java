@@ -0,0 +1,17 @@
+package com.fake.api.jsonplaceholder.model;
+
+import com.fasterxml.jackson.annotation.JsonUnwrapped;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+public class PostWithComments {
+    @JsonUnwrapped
+    private Post post;
+    @Schema(description = "Comments of the post")
+    private List<Comment> comments;
+}
@@ -0,0 +1,29 @@
+package com.fake.api.jsonplaceholder.model;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+
+@Data
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class WriteOperation {
+
+    public enum Type { CREATE, UPDATE, DELETE }
+
+    public enum Status { QUEUED, RUNNING, SUCCEEDED, FAILED }
+
+    @Schema(description = "Operation identifier", example = "5f0c6a8e-3b9b-4c1e-9a55-0a6f3c2b7d41")
+    private String id;
+    @Schema(description = "Kind of write", example = "UPDATE")
+    private Type type;
+    @Schema(description = "Identifier of the post, absent for creations", example = "1")
+    private String postId;
+    @Schema(description = "Progress of the operation", example = "SUCCEEDED")
+    private Status status;
+    @Schema(description = "The post returned by the API, once created or updated")
+    private Post post;
+    @Schema(description = "Error message, when the operation failed", example = "Post not found")
+    private String error;
+}
@@ -0,0 +1,198 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.LimiterProperties;
+import com.fake.api.jsonplaceholder.exception.TooManyRequestsException;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Adaptive bound on the upstream calls in flight (AIMD driven by round-trip time). Each call
+ * answered close to the lowest recent latency grows the limit by {@code 1/limit}; a slow
+ * answer, a timeout or a server error shrinks it by {@code limiter.backoff-ratio}, at most once
+ * per round trip: calls started before the last decrease do not shrink it again. Calls over
+ * the limit wait in a bounded queue and are rejected with {@link TooManyRequestsException}
+ * when it is full or the wait is too long. The limit, the calls in flight and waiting, and the
+ * rejections are published as the {@code upstream.limiter.*} metrics.
+ */
+@Component
+public class AdaptiveLimiter implements MeterBinder {
+
+    private enum Outcome { SAMPLE, DROP, IGNORE }
+
+    private final LimiterProperties properties;
+
+    private final Object lock = new Object();
+    private final Deque<MonoSink<Permit>> waiters = new ArrayDeque<>();
+    private double limit;
+    private int inFlight;
+    private long minRttNanos = Long.MAX_VALUE;
+    private int samples;
+    private long lastDecreaseNanos = System.nanoTime();
+
+    private final LongAdder rejections = new LongAdder();
+
+    public AdaptiveLimiter(LimiterProperties properties) {
+        this.properties = properties;
+        this.limit = properties.getInitialLimit();
+    }
+
+    public <T> Mono<T> limit(Supplier<Mono<T>> call) {
+        if (!properties.isEnabled()) {
+            return Mono.defer(call);
+        }
+        return acquire().flatMap(permit -> Mono.defer(call)
+                .doOnSuccess(value -> permit.release(Outcome.SAMPLE))
+                .doOnError(error -> permit.release(UpstreamResilience.isFailure(error) ? Outcome.DROP : Outcome.SAMPLE))
+                .doOnCancel(() -> permit.release(Outcome.IGNORE)));
+    }
+
+    /**
+     * The slot is held until the stream ends; its duration says nothing about the RTT, so it is not sampled.
+     */
+    public <T> Flux<T> limitMany(Supplier<Flux<T>> call) {
+        if (!properties.isEnabled()) {
+            return Flux.defer(call);
+        }
+        return acquire().flatMapMany(permit -> Flux.defer(call)
+                .doOnComplete(() -> permit.release(Outcome.IGNORE))
+                .doOnError(error -> permit.release(UpstreamResilience.isFailure(error) ? Outcome.DROP : Outcome.IGNORE))
+                .doOnCancel(() -> permit.release(Outcome.IGNORE)));
+    }
+
+    public int currentLimit() {
+        synchronized (lock) {
+            return (int) limit;
+        }
+    }
+
+    public int inFlight() {
+        synchronized (lock) {
+            return inFlight;
+        }
+    }
+
+    private Mono<Permit> acquire() {
+        return Mono.<Permit>create(sink -> {
+                    boolean granted = false;
+                    boolean queued = false;
+                    synchronized (lock) {
+                        if (inFlight < (int) limit) {
+                            inFlight++;
+                            granted = true;
+                        } else if (waiters.size() < properties.getQueueSize()) {
+                            waiters.add(sink);
+                            queued = true;
+                        }
+                    }
+                    if (granted) {
+                        sink.success(new Permit());
+                        return;
+                    }
+                    if (!queued) {
+                        rejections.increment();
+                        sink.error(new TooManyRequestsException("Too many requests to the upstream"));
+                        return;
+                    }
+                    sink.onCancel(() -> {
+                        synchronized (lock) {
+                            waiters.remove(sink);
+                        }
+                    });
+                })
+                .timeout(properties.getQueueTimeout(), Mono.defer(() -> {
+                    rejections.increment();
+                    return Mono.error(new TooManyRequestsException("Timed out waiting for an upstream slot"));
+                }))
+                // A slot granted to a waiter that gave up at the same time goes back to the pool
+                .doOnDiscard(Permit.class, permit -> permit.release(Outcome.IGNORE));
+    }
+
+    private void release(long startNanos, Outcome outcome) {
+        long now = System.nanoTime();
+        List<MonoSink<Permit>> granted = new ArrayList<>();
+        synchronized (lock) {
+            inFlight--;
+            if (outcome == Outcome.SAMPLE) {
+                sample(startNanos, now);
+            } else if (outcome == Outcome.DROP) {
+                decrease(startNanos, now);
+            }
+            while (inFlight < (int) limit && !waiters.isEmpty()) {
+                inFlight++;
+                granted.add(waiters.poll());
+            }
+        }
+        // Outside the lock, the waiters start their calls right away
+        granted.forEach(sink -> sink.success(new Permit()));
+    }
+
+    private void sample(long startNanos, long now) {
+        long rttNanos = now - startNanos;
+        if (++samples % properties.getMinRttWindow() == 0) {
+            // Forget the old floor, the upstream may have become slower for good
+            minRttNanos = rttNanos;
+        }
+        minRttNanos = Math.min(minRttNanos, rttNanos);
+
+        if (rttNanos > minRttNanos * properties.getRttTolerance()) {
+            decrease(startNanos, now);
+        } else if (inFlight + 1 >= limit / 2) {
+            // Only grow while the limit is actually being used
+            limit = Math.min(properties.getMaxLimit(), limit + 1 / limit);
+        }
+    }
+
+    private void decrease(long startNanos, long now) {
+        if (startNanos - lastDecreaseNanos < 0) {
+            // Sent under the previous limit, the congestion it reports has already been answered
+            return;
+        }
+        limit = Math.max(properties.getMinLimit(), limit * properties.getBackoffRatio());
+        lastDecreaseNanos = now;
+    }
+
+    private class Permit {
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        void release(Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveLimiter.this.release(start, outcome);
+            }
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("upstream.limiter.limit", this, AdaptiveLimiter::currentLimit)
+                .description("Current limit of upstream calls in flight")
+                .register(registry);
+        Gauge.builder("upstream.limiter.inflight", this, AdaptiveLimiter::inFlight)
+                .description("Upstream calls in flight")
+                .register(registry);
+        Gauge.builder("upstream.limiter.queued", this, limiter -> {
+                    synchronized (limiter.lock) {
+                        return limiter.waiters.size();
+                    }
+                })
+                .description("Upstream calls waiting for a slot")
+                .register(registry);
+        FunctionCounter.builder("upstream.limiter.rejections", rejections, LongAdder::sum)
+                .description("Upstream calls rejected because the queue was full or the wait too long")
+                .register(registry);
+    }
+}
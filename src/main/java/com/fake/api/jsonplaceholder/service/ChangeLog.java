@@ -0,0 +1,134 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ChangeLogProperties;
+import com.fake.api.jsonplaceholder.model.ChangeFeed;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fake.api.jsonplaceholder.model.PostChange;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Append-only log of post changes, numbered from 1 and kept in a ring of
+ * {@code change-log.capacity} entries. Readers keep the sequence number of the last change they
+ * saw and ask for the ones after it; when those were already overwritten, or the number is ahead
+ * of the log because the service restarted, the answer says so and the reader reloads the posts.
+ * <p>
+ * Every append also publishes the new sequence number, so long-polls and followers wake up
+ * without scanning the log.
+ */
+@Component
+public class ChangeLog implements MeterBinder {
+
+    private final ChangeLogProperties properties;
+    private final PostChange[] ring;
+
+    // Guarded by this
+    private long lastSeq;
+
+    // Only the latest sequence number matters, a subscriber is always handed the current one first
+    private final Sinks.Many<Long> appended = Sinks.many().replay().latest();
+
+    public ChangeLog(ChangeLogProperties properties) {
+        this.properties = properties;
+        this.ring = new PostChange[properties.getCapacity()];
+    }
+
+    public synchronized PostChange append(PostChange.Type type, PostChange.Source source, Long postId, Post post) {
+        PostChange change = new PostChange(++lastSeq, type, source, postId, post, Instant.now());
+        ring[index(change.getSeq())] = change;
+        // Emitted under the lock, so emissions are serialized and in order
+        appended.tryEmitNext(change.getSeq());
+        return change;
+    }
+
+    /**
+     * Changes after {@code since}, at most {@code change-log.max-batch} of them.
+     */
+    public synchronized ChangeFeed read(long since) {
+        if (since < 0) {
+            throw new IllegalArgumentException("since must not be negative");
+        }
+        if (since > lastSeq || since < lastSeq - ring.length) {
+            return new ChangeFeed(List.of(), lastSeq, true);
+        }
+        int count = (int) Math.min(lastSeq - since, properties.getMaxBatch());
+        List<PostChange> changes = new ArrayList<>(count);
+        for (long seq = since + 1; seq <= since + count; seq++) {
+            changes.add(ring[index(seq)]);
+        }
+        return new ChangeFeed(changes, since + count, false);
+    }
+
+    /**
+     * Like {@link #read}, but when there is nothing after {@code since} waits up to {@code wait}
+     * (capped at {@code change-log.max-wait}) for a change before answering.
+     */
+    public Mono<ChangeFeed> poll(long since, Duration wait) {
+        return Mono.defer(() -> {
+            ChangeFeed feed = read(since);
+            if (feed.isReset() || !feed.getChanges().isEmpty() || wait.isZero() || wait.isNegative()) {
+                return Mono.just(feed);
+            }
+            Duration timeout = wait.compareTo(properties.getMaxWait()) > 0 ? properties.getMaxWait() : wait;
+            return appended.asFlux()
+                    .filter(seq -> seq > since)
+                    .next()
+                    .timeout(timeout, Mono.empty())
+                    // Read off the appending thread, it holds the lock while emitting
+                    .publishOn(Schedulers.parallel())
+                    .then(Mono.fromSupplier(() -> read(since)));
+        });
+    }
+
+    /**
+     * Every change after {@code since}, then each new one as it is appended. Feeds that only
+     * report a reset are emitted too; the reader continues from their {@code lastSeq}. Completes
+     * after {@code change-log.max-stream}, the reader then follows again from where it stopped.
+     */
+    public Flux<ChangeFeed> follow(long since) {
+        return Flux.defer(() -> {
+            AtomicLong cursor = new AtomicLong(since);
+            return appended.asFlux()
+                    .onBackpressureLatest()
+                    .startWith(since)
+                    .publishOn(Schedulers.parallel(), 1)
+                    .concatMap(seq -> drain(cursor), 1);
+        }).take(properties.getMaxStream());
+    }
+
+    private Flux<ChangeFeed> drain(AtomicLong cursor) {
+        return Mono.fromSupplier(() -> read(cursor.get()))
+                .expand(feed -> feed.getChanges().size() == properties.getMaxBatch()
+                        ? Mono.fromSupplier(() -> read(feed.getLastSeq()))
+                        : Mono.empty())
+                .doOnNext(feed -> cursor.set(feed.getLastSeq()))
+                .filter(feed -> feed.isReset() || !feed.getChanges().isEmpty());
+    }
+
+    public synchronized long lastSeq() {
+        return lastSeq;
+    }
+
+    private int index(long seq) {
+        return (int) (seq % ring.length);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("change.log.sequence", this, ChangeLog::lastSeq)
+                .description("Sequence number of the last recorded post change")
+                .register(registry);
+    }
+}
@@ -0,0 +1,230 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ResponseCacheProperties;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.DigestUtils;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Keeps GET response bodies already encoded as JSON or XML, with a gzip copy when they are big
+ * enough, keyed by query and format. Cached bodies are sent as they are, with a strong ETag; a
+ * matching {@code If-None-Match} is answered with 304 before the service is called. Any write
+ * drops every entry, and responses served from stale data are never kept. A {@code fields}
+ * projection is part of the key, each projection is encoded and validated on its own.
+ * <p>
+ * Brotli copies are not kept, the JDK has no Brotli encoder.
+ */
+@Component
+public class EncodedResponseCache implements MeterBinder {
+
+    enum Format {
+        JSON(MediaType.APPLICATION_JSON), XML(MediaType.APPLICATION_XML);
+
+        private final MediaType mediaType;
+
+        Format(MediaType mediaType) {
+            this.mediaType = mediaType;
+        }
+    }
+
+    private record Key(String query, Format format, Class<?> type, Set<String> fields) {}
+
+    private record Encoded(byte[] identity, byte[] gzip, String etag) {}
+
+    private static final String GZIP = "gzip";
+
+    private final ResponseCacheProperties properties;
+    private final ObjectMapper jsonMapper;
+    private final ObjectMapper xmlMapper;
+    private final Cache<Key, Encoded> responses;
+
+    // Writes bump the generation, a response loaded before a write is not kept
+    private final AtomicLong generation = new AtomicLong();
+
+    private volatile Counter notModified;
+
+    @Autowired
+    public EncodedResponseCache(ResponseCacheProperties properties, ObjectMapper objectMapper,
+                                Jackson2ObjectMapperBuilder objectMapperBuilder) {
+        this.properties = properties;
+        // Copies, the projection filter must not leak into the mappers shared with the message converters
+        this.jsonMapper = FieldProjection.register(objectMapper.copy());
+        this.xmlMapper = FieldProjection.register(objectMapperBuilder.createXmlMapper(true).build());
+        this.responses = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .expireAfterWrite(properties.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    EncodedResponseCache(ResponseCacheProperties properties) {
+        this(properties, Jackson2ObjectMapperBuilder.json().build(), Jackson2ObjectMapperBuilder.json());
+    }
+
+    /**
+     * Answers a GET from the cache, or from {@code load} when the query is not cached yet.
+     * Only {@code fields} of the {@code type} objects in the body are written, every property when null.
+     */
+    public <T> Mono<ResponseEntity<byte[]>> serve(String query, HttpHeaders requestHeaders, Class<?> type, Set<String> fields,
+                                                  Supplier<Mono<ResponseEntity<T>>> load) {
+        Format format = format(requestHeaders);
+        boolean gzip = acceptsGzip(requestHeaders);
+        String ifNoneMatch = requestHeaders.getFirst(HttpHeaders.IF_NONE_MATCH);
+
+        if (!properties.isEnabled()) {
+            return load.get().map(entity -> respond(encode(entity.getBody(), format, type, fields), format, gzip, ifNoneMatch, entity.getHeaders()));
+        }
+
+        Key key = new Key(query, format, type, fields);
+        Encoded cached = responses.getIfPresent(key);
+        if (cached != null) {
+            return Mono.just(respond(cached, format, gzip, ifNoneMatch, HttpHeaders.EMPTY));
+        }
+
+        return Mono.defer(() -> {
+            long startGeneration = generation.get();
+            return load.get().map(entity -> {
+                Encoded encoded = encode(entity.getBody(), format, type, fields);
+                // Stale answers carry a Warning and are only good for this request
+                if (entity.getStatusCode() == HttpStatus.OK && !entity.getHeaders().containsKey(HttpHeaders.WARNING)
+                        && generation.get() == startGeneration) {
+                    responses.put(key, encoded);
+                }
+                return respond(encoded, format, gzip, ifNoneMatch, entity.getHeaders());
+            });
+        });
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        responses.invalidateAll();
+    }
+
+    private ResponseEntity<byte[]> respond(Encoded encoded, Format format, boolean acceptsGzip, String ifNoneMatch,
+                                           HttpHeaders headers) {
+        boolean gzip = acceptsGzip && encoded.gzip() != null;
+        // The gzip copy is another representation, so it gets its own strong validator
+        String etag = gzip ? "\"" + encoded.etag() + "-gzip\"" : "\"" + encoded.etag() + "\"";
+        HttpHeaders responseHeaders = new HttpHeaders();
+        responseHeaders.addAll(headers);
+        responseHeaders.setETag(etag);
+        responseHeaders.setVary(List.of(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING));
+
+        if (matches(ifNoneMatch, encoded.etag())) {
+            Counter counter = notModified;
+            if (counter != null) {
+                counter.increment();
+            }
+            return new ResponseEntity<>(responseHeaders, HttpStatus.NOT_MODIFIED);
+        }
+        if (gzip) {
+            responseHeaders.set(HttpHeaders.CONTENT_ENCODING, GZIP);
+        }
+        responseHeaders.setContentType(format.mediaType);
+        return new ResponseEntity<>(gzip ? encoded.gzip() : encoded.identity(), responseHeaders, HttpStatus.OK);
+    }
+
+    private Encoded encode(Object body, Format format, Class<?> type, Set<String> fields) {
+        byte[] identity;
+        try {
+            identity = FieldProjection.writer(format == Format.XML ? xmlMapper : jsonMapper, type, fields).writeValueAsBytes(body);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode response as " + format, e);
+        }
+        byte[] gzip = identity.length >= properties.getGzipMinSize().toBytes() ? gzip(identity) : null;
+        return new Encoded(identity, gzip, DigestUtils.md5DigestAsHex(identity));
+    }
+
+    private static byte[] gzip(byte[] identity) {
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream(identity.length / 4);
+        try (GZIPOutputStream out = new GZIPOutputStream(compressed)) {
+            out.write(identity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return compressed.toByteArray();
+    }
+
+    // Weak comparison, as If-None-Match requires; either coding of the body matches
+    private static boolean matches(String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*")) {
+                return true;
+            }
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("\"" + etag + "\"") || tag.equals("\"" + etag + "-gzip\"")) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // JSON unless XML is preferred, as the message converters would choose
+    static Format format(HttpHeaders requestHeaders) {
+        List<MediaType> accepted = requestHeaders.getAccept().stream()
+                .sorted(Comparator.comparingDouble(MediaType::getQualityValue).reversed())
+                .toList();
+        for (MediaType mediaType : accepted) {
+            if (mediaType.getQualityValue() == 0) {
+                continue;
+            }
+            if (mediaType.includes(MediaType.APPLICATION_JSON)) {
+                return Format.JSON;
+            }
+            if (mediaType.includes(MediaType.APPLICATION_XML) || mediaType.includes(MediaType.TEXT_XML)) {
+                return Format.XML;
+            }
+        }
+        return Format.JSON;
+    }
+
+    private static boolean acceptsGzip(HttpHeaders requestHeaders) {
+        for (String value : requestHeaders.getOrEmpty(HttpHeaders.ACCEPT_ENCODING)) {
+            for (String coding : value.split(",")) {
+                String[] parts = coding.trim().split(";");
+                if (parts[0].trim().equalsIgnoreCase(GZIP) && !(parts.length > 1 && parts[1].trim().matches("q=0(\\.0*)?"))) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, responses, "responses");
+        notModified = Counter.builder("response.cache.not.modified")
+                .description("GET requests answered with 304 Not Modified")
+                .register(registry);
+    }
+}
@@ -0,0 +1,83 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ErrorLogProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongSupplier;
+
+/**
+ * Decides which error reports are written to the log. A {@code error-log.sample-rate} share of
+ * them is considered, and of those at most {@code error-log.max-per-interval} per interval are
+ * logged. The others are counted as {@code errors.log.suppressed}, and their number is reported
+ * with the next one logged.
+ */
+@Component
+public class ErrorLogLimiter implements MeterBinder {
+
+    private final ErrorLogProperties properties;
+    private final LongSupplier nanoTime;
+
+    private long windowStart;
+    private int logged;
+    private long suppressed;
+
+    private volatile Counter suppressedCounter;
+
+    @Autowired
+    public ErrorLogLimiter(ErrorLogProperties properties) {
+        this(properties, System::nanoTime);
+    }
+
+    ErrorLogLimiter(ErrorLogProperties properties, LongSupplier nanoTime) {
+        this.properties = properties;
+        this.nanoTime = nanoTime;
+        this.windowStart = nanoTime.getAsLong();
+    }
+
+    /**
+     * Returns the number of reports suppressed since the last one logged when this one may be
+     * logged, or -1 when it must not.
+     */
+    public long acquire() {
+        if (properties.getSampleRate() < 1.0 && ThreadLocalRandom.current().nextDouble() >= properties.getSampleRate()) {
+            return suppress();
+        }
+        synchronized (this) {
+            long now = nanoTime.getAsLong();
+            if (now - windowStart >= properties.getInterval().toNanos()) {
+                windowStart = now;
+                logged = 0;
+            }
+            if (logged >= properties.getMaxPerInterval()) {
+                return suppress();
+            }
+            logged++;
+            long previouslySuppressed = suppressed;
+            suppressed = 0;
+            return previouslySuppressed;
+        }
+    }
+
+    private long suppress() {
+        synchronized (this) {
+            suppressed++;
+        }
+        Counter counter = suppressedCounter;
+        if (counter != null) {
+            counter.increment();
+        }
+        return -1;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        suppressedCounter = Counter.builder("errors.log.suppressed")
+                .description("Error reports left out of the log by sampling or rate limiting")
+                .register(registry);
+    }
+}
@@ -0,0 +1,353 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ExportProperties;
+import com.fake.api.jsonplaceholder.exception.NotFoundException;
+import com.fake.api.jsonplaceholder.exception.TooManyRequestsException;
+import com.fake.api.jsonplaceholder.model.ExportJob;
+import com.fake.api.jsonplaceholder.model.ExportRequest;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.util.FileSystemUtils;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Background exports of posts. Accepted exports get a job id and wait in a bounded queue; when it
+ * is full they are rejected with {@link TooManyRequestsException}. At most
+ * {@code export.jobs.concurrency} run at once. Each one fetches the posts page by page and writes
+ * every page to all the requested formats before the next one is fetched, one file per format
+ * under {@code exports/<id>} in the export directory. Queued and running jobs are tracked apart
+ * until they finish; only then are they, and their files, kept for {@code export.jobs.retention}
+ * and counted against {@code export.jobs.maximum-jobs}.
+ */
+@Component
+@Slf4j
+public class ExportJobs implements MeterBinder {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private static class Job {
+        private final String id;
+        private final ExportRequest request;
+        private final List<ExportJob.Format> formats;
+        private final Set<String> fields;
+        private final Instant createdAt = Instant.now();
+        private final AtomicLong records = new AtomicLong();
+        private final AtomicLong bytes = new AtomicLong();
+        private volatile ExportJob.Status status = ExportJob.Status.QUEUED;
+        private volatile Instant finishedAt;
+        private volatile String error;
+
+        private Job(String id, ExportRequest request, List<ExportJob.Format> formats, Set<String> fields) {
+            this.id = id;
+            this.request = request;
+            this.formats = formats;
+            this.fields = fields;
+        }
+
+        private ExportJob toModel() {
+            return new ExportJob(id, status, formats, request.getCompression(), records.get(), bytes.get(),
+                    createdAt, finishedAt, error);
+        }
+    }
+
+    private final ExportProperties properties;
+    private final PostsService postsService;
+    // Queued and running jobs, never expired
+    private final Map<String, Job> activeJobs = new ConcurrentHashMap<>();
+    // Finished jobs, expired with their files
+    private final Cache<String, Job> finishedJobs;
+
+    private final Sinks.Many<Job> queue = Sinks.many().unicast().onBackpressureBuffer(Queues.<Job>unbounded().get());
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger running = new AtomicInteger();
+    private Disposable workers;
+
+    @Autowired
+    public ExportJobs(ExportProperties properties, PostsService postsService) {
+        this.properties = properties;
+        this.postsService = postsService;
+        this.finishedJobs = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getJobs().getRetention())
+                .maximumSize(properties.getJobs().getMaximumJobs())
+                .<String, Job>removalListener((id, job, cause) -> {
+                    if (cause.wasEvicted()) {
+                        deleteFiles(id);
+                    }
+                })
+                .build();
+    }
+
+    @PostConstruct
+    public void start() {
+        workers = queue.asFlux()
+                .flatMap(this::run, properties.getJobs().getConcurrency())
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (workers != null) {
+            workers.dispose();
+        }
+    }
+
+    public ExportJob submit(ExportRequest request) {
+        List<ExportJob.Format> formats = request.getFormats() == null || request.getFormats().isEmpty()
+                ? List.of(ExportJob.Format.JSON)
+                : request.getFormats().stream().distinct().toList();
+        if (request.getCompression() == null) {
+            request.setCompression(ExportJob.Compression.NONE);
+        }
+        Job job = new Job(UUID.randomUUID().toString(), request, formats, FieldProjection.parse(request.getFields(), Post.class));
+
+        synchronized (this) {
+            if (queued.get() >= properties.getJobs().getQueueSize()) {
+                throw new TooManyRequestsException("Export queue is full");
+            }
+            activeJobs.put(job.id, job);
+            queued.incrementAndGet();
+            // Serialized by the lock, so the emission cannot fail
+            queue.tryEmitNext(job);
+        }
+        return job.toModel();
+    }
+
+    public ExportJob getJob(String id) {
+        return find(id).toModel();
+    }
+
+    /**
+     * The file of a finished export in {@code format}, the first requested format when null.
+     */
+    public Path getFile(String id, ExportJob.Format format) {
+        Job job = find(id);
+        ExportJob.Format fileFormat = format != null ? format : job.formats.get(0);
+        if (job.status != ExportJob.Status.SUCCEEDED || !job.formats.contains(fileFormat)) {
+            throw new NotFoundException("Export file not found");
+        }
+        return file(job, fileFormat);
+    }
+
+    static String fileName(ExportJob.Format format, ExportJob.Compression compression) {
+        String name = "posts." + format.getExtension();
+        return compression == ExportJob.Compression.GZIP ? name + ".gz" : name;
+    }
+
+    public int queuedCount() {
+        return queued.get();
+    }
+
+    public int runningCount() {
+        return running.get();
+    }
+
+    private Job find(String id) {
+        Job job = activeJobs.get(id);
+        if (job == null) {
+            job = finishedJobs.getIfPresent(id);
+        }
+        if (job == null) {
+            throw new NotFoundException("Export not found");
+        }
+        return job;
+    }
+
+    private Mono<Void> run(Job job) {
+        queued.decrementAndGet();
+        running.incrementAndGet();
+        job.status = ExportJob.Status.RUNNING;
+        ExportRequest request = job.request;
+
+        // File I/O is blocking, keep it off the event loop
+        return Mono.using(() -> open(job),
+                        files -> postsService.getPostPages(request.getUserId(), request.getTitle(), properties.getJobs().getPageSize())
+                                // One page ahead at most, the next one is fetched while this one is written
+                                .publishOn(Schedulers.boundedElastic(), 1)
+                                .doOnNext(page -> {
+                                    files.write(page);
+                                    job.records.addAndGet(page.size());
+                                })
+                                .then(Mono.fromRunnable(files::finish)),
+                        JobFiles::close)
+                .subscribeOn(Schedulers.boundedElastic())
+                .doOnSuccess(done -> finish(job, ExportJob.Status.SUCCEEDED, null))
+                .doOnError(e -> {
+                    log.warn("Export {} failed: {}", job.id, e.getMessage());
+                    deleteFiles(job.id);
+                    finish(job, ExportJob.Status.FAILED, e.getMessage());
+                })
+                .onErrorResume(e -> Mono.empty())
+                .doFinally(signal -> running.decrementAndGet())
+                .then();
+    }
+
+    private void finish(Job job, ExportJob.Status status, String error) {
+        job.error = error;
+        job.finishedAt = Instant.now();
+        job.status = status;
+        // Retention counts from the end of the export
+        finishedJobs.put(job.id, job);
+        activeJobs.remove(job.id);
+    }
+
+    private JobFiles open(Job job) throws IOException {
+        Files.createDirectories(directory(job.id));
+        JobFiles files = new JobFiles();
+        try {
+            for (ExportJob.Format format : job.formats) {
+                files.open(format, file(job, format), job);
+            }
+        } catch (IOException e) {
+            files.close();
+            throw e;
+        }
+        return files;
+    }
+
+    private Path file(Job job, ExportJob.Format format) {
+        return directory(job.id).resolve(fileName(format, job.request.getCompression()));
+    }
+
+    private Path directory(String id) {
+        return Path.of(properties.getDirectory()).resolve("exports").resolve(id);
+    }
+
+    private void deleteFiles(String id) {
+        try {
+            FileSystemUtils.deleteRecursively(directory(id));
+        } catch (IOException e) {
+            log.warn("Files of export {} not deleted: {}", id, e.getMessage());
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("export.jobs.queued", this, ExportJobs::queuedCount)
+                .description("Accepted exports not started yet")
+                .register(registry);
+        Gauge.builder("export.jobs.running", this, ExportJobs::runningCount)
+                .description("Exports being written")
+                .register(registry);
+    }
+
+    // The open files of a running export, one per format, all fed the same pages
+    private static class JobFiles {
+        private final Map<ExportJob.Format, PostsPageWriter> writers = new EnumMap<>(ExportJob.Format.class);
+        private final List<OutputStream> streams = new ArrayList<>();
+        private final List<FileOutputStream> files = new ArrayList<>();
+
+        void open(ExportJob.Format format, Path path, Job job) throws IOException {
+            FileOutputStream file = new FileOutputStream(path.toFile());
+            files.add(file);
+            // Bytes are counted as they reach the file, after compression
+            OutputStream out = new BufferedOutputStream(new CountingOutputStream(file, job.bytes), BUFFER_SIZE);
+            if (job.request.getCompression() == ExportJob.Compression.GZIP) {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            }
+            streams.add(out);
+            writers.put(format, PostsPageWriter.open(format, out, job.fields));
+        }
+
+        void write(List<Post> page) {
+            try {
+                for (PostsPageWriter writer : writers.values()) {
+                    writer.write(page);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        void finish() {
+            try {
+                for (PostsPageWriter writer : writers.values()) {
+                    writer.finish();
+                }
+                for (OutputStream out : streams) {
+                    if (out instanceof GZIPOutputStream gzip) {
+                        gzip.finish();
+                    }
+                    out.flush();
+                }
+                for (FileOutputStream file : files) {
+                    file.getChannel().force(true);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        // Closing the outermost streams also ends the deflaters of compressed files
+        void close() {
+            for (OutputStream out : streams) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    log.debug("Export stream not closed: {}", e.getMessage());
+                }
+            }
+            // In case a stream above failed before closing its file
+            for (FileOutputStream file : files) {
+                try {
+                    file.close();
+                } catch (IOException e) {
+                    log.debug("Export file not closed: {}", e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private final AtomicLong count;
+
+        CountingOutputStream(OutputStream out, AtomicLong count) {
+            super(out);
+            this.count = count;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count.incrementAndGet();
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count.addAndGet(len);
+        }
+    }
+}
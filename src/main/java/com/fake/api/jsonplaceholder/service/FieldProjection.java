@@ -0,0 +1,144 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.model.Comment;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fasterxml.jackson.annotation.JsonFilter;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.fasterxml.jackson.databind.ser.PropertyFilter;
+import com.fasterxml.jackson.databind.ser.PropertyWriter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleBeanPropertyFilter;
+import com.fasterxml.jackson.databind.ser.impl.SimpleFilterProvider;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+
+import java.io.IOException;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Projection of posts and comments to the properties named in a {@code fields} parameter.
+ * It is applied by a Jackson property filter while the objects are written, nothing is copied:
+ * mappers passed through {@link #register} write every property unless a writer from
+ * {@link #writer} restricts them. Streamed elements are wrapped by {@link #projector}, whose
+ * wrapper serializes itself with the projection, so any encoder honors it.
+ */
+public final class FieldProjection {
+
+    private static final String FILTER_ID = "fields";
+
+    @JsonFilter(FILTER_ID)
+    private interface Projectable {}
+
+    private static final SimpleFilterProvider ALL_FIELDS = new SimpleFilterProvider()
+            .setDefaultFilter(SimpleBeanPropertyFilter.serializeAll());
+
+    // Writes streamed elements, without a flush per element
+    private static final ObjectMapper STREAM_MAPPER = register(new ObjectMapper()
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE));
+
+    private FieldProjection() {
+    }
+
+    /**
+     * Parses a comma separated list of properties of {@code type}, null when every property is wanted.
+     *
+     * @throws IllegalArgumentException when a name is not a property of {@code type}
+     */
+    public static Set<String> parse(String fields, Class<?> type) {
+        if (fields == null || fields.isBlank()) {
+            return null;
+        }
+        Set<String> known = Arrays.stream(type.getDeclaredFields())
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                .map(Field::getName)
+                .collect(Collectors.toSet());
+        // Sorted, so the same projection written in another order is the same cache key
+        Set<String> projection = new TreeSet<>();
+        for (String field : fields.split(",")) {
+            String name = field.trim();
+            if (!known.contains(name)) {
+                throw new IllegalArgumentException("Unknown field '" + name + "', expected some of " + new TreeSet<>(known));
+            }
+            projection.add(name);
+        }
+        return projection;
+    }
+
+    /**
+     * Makes posts and comments written by {@code mapper} filterable, with every property written by default.
+     */
+    public static <M extends ObjectMapper> M register(M mapper) {
+        mapper.addMixIn(Post.class, Projectable.class);
+        mapper.addMixIn(Comment.class, Projectable.class);
+        mapper.setFilterProvider(ALL_FIELDS);
+        return mapper;
+    }
+
+    /**
+     * Writer of a mapper passed through {@link #register} that only writes {@code fields}, all of them when null.
+     */
+    public static ObjectWriter writer(ObjectMapper mapper, Set<String> fields) {
+        if (fields == null) {
+            return mapper.writer();
+        }
+        return mapper.writer(new SimpleFilterProvider()
+                .addFilter(FILTER_ID, SimpleBeanPropertyFilter.filterOutAllExcept(fields)));
+    }
+
+    /**
+     * Like {@link #writer(ObjectMapper, Set)}, but only objects of {@code type} are projected; posts
+     * or comments of another type nested in them, such as embedded comments, are written whole.
+     */
+    public static ObjectWriter writer(ObjectMapper mapper, Class<?> type, Set<String> fields) {
+        if (fields == null) {
+            return mapper.writer();
+        }
+        PropertyFilter projection = SimpleBeanPropertyFilter.filterOutAllExcept(fields);
+        return mapper.writer(new SimpleFilterProvider().addFilter(FILTER_ID, new SimpleBeanPropertyFilter() {
+            @Override
+            public void serializeAsField(Object pojo, JsonGenerator generator, SerializerProvider provider,
+                                         PropertyWriter writer) throws Exception {
+                if (type.isInstance(pojo)) {
+                    projection.serializeAsField(pojo, generator, provider, writer);
+                } else {
+                    writer.serializeAsField(pojo, generator, provider);
+                }
+            }
+        }));
+    }
+
+    /**
+     * Maps streamed elements to values that are written with only {@code fields}, the elements themselves when null.
+     */
+    public static <T> Function<T, Object> projector(Set<String> fields) {
+        if (fields == null) {
+            return value -> value;
+        }
+        ObjectWriter writer = writer(STREAM_MAPPER, fields);
+        return value -> new Projected(value, writer);
+    }
+
+    @JsonSerialize(using = ProjectedSerializer.class)
+    record Projected(Object value, ObjectWriter writer) {}
+
+    static class ProjectedSerializer extends StdSerializer<Projected> {
+
+        ProjectedSerializer() {
+            super(Projected.class);
+        }
+
+        @Override
+        public void serialize(Projected projected, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            projected.writer().writeValue(generator, projected.value());
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ExportProperties;
+import com.fake.api.jsonplaceholder.model.ExportDelta;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Differential variant of {@link PostsExporter}. A content hash per post is kept in
+ * {@code posts.index}; each run compares the fetched posts with it and only appends the
+ * added, changed and removed posts to the {@code posts.changes.ndjson} segment. Once the
+ * segment holds {@code export.incremental.compact-threshold} records, the full JSON and
+ * XML exports and the index are rewritten and the segment starts over.
+ * <p>
+ * The index describes the full dataset. When the export files are overwritten with a filtered
+ * or projected export, {@link #invalidate()} drops the index and segment, and the next run
+ * rewrites the full files.
+ */
+@Component
+@Slf4j
+public class IncrementalPostsExporter {
+
+    private static final String INDEX_FILE = "posts.index";
+    private static final String SEGMENT_FILE = "posts.changes.ndjson";
+
+    private enum Operation { ADDED, CHANGED, REMOVED }
+
+    private record Change(Operation op, Long id, String hash, Post post) {}
+
+    private final ExportProperties properties;
+    private final PostsExporter postsExporter;
+    private final ObjectMapper jsonMapper = Jackson2ObjectMapperBuilder.json().build();
+
+    // Content hash per post id, as of the last run; loaded lazily from disk
+    private Map<Long, String> hashes;
+    private int segmentRecords;
+
+    public IncrementalPostsExporter(ExportProperties properties, PostsExporter postsExporter) {
+        this.properties = properties;
+        this.postsExporter = postsExporter;
+    }
+
+    public Mono<ExportDelta> export(List<Post> posts) {
+        // File I/O is blocking, keep it off the event loop
+        return Mono.fromCallable(() -> exportDelta(posts))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Forgets the state of the previous runs, the export files no longer match it.
+     */
+    public Mono<Void> invalidate() {
+        return Mono.<Void>fromRunnable(() -> {
+            try {
+                drop();
+            } catch (IOException e) {
+                throw new RuntimeException("Error invalidating the incremental export", e);
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private synchronized void drop() throws IOException {
+        Files.deleteIfExists(directory().resolve(INDEX_FILE));
+        Files.deleteIfExists(directory().resolve(SEGMENT_FILE));
+        hashes = null;
+    }
+
+    private synchronized ExportDelta exportDelta(List<Post> posts) throws IOException {
+        if (hashes == null) {
+            load();
+        }
+
+        // Compare the fetched posts with the previous snapshot
+        Map<Long, String> current = new HashMap<>();
+        List<Change> changes = new ArrayList<>();
+        int unchanged = 0;
+        for (Post post : posts) {
+            String hash = hash(post);
+            current.put(post.getId(), hash);
+            String previous = hashes.get(post.getId());
+            if (previous == null) {
+                changes.add(new Change(Operation.ADDED, post.getId(), hash, post));
+            } else if (!previous.equals(hash)) {
+                changes.add(new Change(Operation.CHANGED, post.getId(), hash, post));
+            } else {
+                unchanged++;
+            }
+        }
+        Set<Long> removed = new HashSet<>(hashes.keySet());
+        removed.removeAll(current.keySet());
+        for (Long id : removed) {
+            changes.add(new Change(Operation.REMOVED, id, null, null));
+        }
+
+        boolean compacted = false;
+        // Without an index the files on disk are not known to hold the full dataset
+        boolean indexed = Files.exists(directory().resolve(INDEX_FILE));
+        if (!indexed || !postsExporter.hasExport() || segmentRecords + changes.size() >= properties.getIncremental().getCompactThreshold()) {
+            compact(posts, current);
+            compacted = true;
+        } else if (!changes.isEmpty()) {
+            append(changes);
+        }
+        hashes = current;
+
+        ExportDelta delta = new ExportDelta(count(changes, Operation.ADDED), count(changes, Operation.CHANGED),
+                removed.size(), unchanged, compacted);
+        log.debug("Incremental export: {}", delta);
+        return delta;
+    }
+
+    private void load() throws IOException {
+        hashes = new HashMap<>();
+        segmentRecords = 0;
+
+        Path index = directory().resolve(INDEX_FILE);
+        if (Files.exists(index)) {
+            hashes.putAll(jsonMapper.readValue(index.toFile(), new TypeReference<Map<Long, String>>() {}));
+        }
+
+        // Replay the changes appended since the last compaction
+        Path segment = directory().resolve(SEGMENT_FILE);
+        if (Files.exists(segment)) {
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    Change change = jsonMapper.readValue(line, Change.class);
+                    if (change.op() == Operation.REMOVED) {
+                        hashes.remove(change.id());
+                    } else {
+                        hashes.put(change.id(), change.hash());
+                    }
+                    segmentRecords++;
+                }
+            }
+        }
+    }
+
+    private void append(List<Change> changes) throws IOException {
+        Files.createDirectories(directory());
+        try (FileOutputStream file = new FileOutputStream(directory().resolve(SEGMENT_FILE).toFile(), true)) {
+            OutputStream out = new BufferedOutputStream(file);
+            for (Change change : changes) {
+                out.write(jsonMapper.writeValueAsBytes(change));
+                out.write('\n');
+            }
+            out.flush();
+            file.getChannel().force(true);
+        }
+        segmentRecords += changes.size();
+    }
+
+    private void compact(List<Post> posts, Map<Long, String> current) throws IOException {
+        postsExporter.export(posts).block();
+
+        // Write the new index before dropping the segment it supersedes
+        Files.createDirectories(directory());
+        Path temp = Files.createTempFile(directory(), INDEX_FILE + ".", ".tmp");
+        try {
+            try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+                file.write(jsonMapper.writeValueAsBytes(current));
+                file.getChannel().force(true);
+            }
+            Files.move(temp, directory().resolve(INDEX_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        Files.deleteIfExists(directory().resolve(SEGMENT_FILE));
+        segmentRecords = 0;
+    }
+
+    private String hash(Post post) throws JsonProcessingException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(jsonMapper.writeValueAsBytes(post)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private Path directory() {
+        return Path.of(properties.getDirectory());
+    }
+
+    private static int count(List<Change> changes, Operation op) {
+        return (int) changes.stream().filter(change -> change.op() == op).count();
+    }
+}
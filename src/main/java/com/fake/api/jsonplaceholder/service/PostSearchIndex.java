@@ -0,0 +1,194 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.SearchProperties;
+import com.fake.api.jsonplaceholder.model.Post;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Local inverted index over post titles (and optionally bodies). Terms are lower-cased runs
+ * of letters and digits; each term maps to the ids of the posts containing it, kept sorted.
+ * A query is a list of terms that must all match; a term ending in {@code *} matches every
+ * indexed term with that prefix.
+ */
+@Component
+public class PostSearchIndex {
+
+    private final SearchProperties properties;
+    private final Clock clock;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final TreeMap<String, TreeSet<Long>> postings = new TreeMap<>();
+    private final Map<Long, Post> posts = new HashMap<>();
+    private final Map<Long, Set<String>> termsByPost = new HashMap<>();
+    private Instant builtAt;
+
+    public PostSearchIndex(SearchProperties properties) {
+        this.properties = properties;
+        this.clock = Clock.systemUTC();
+    }
+
+    /**
+     * Whether the index has been built and is younger than {@code search.max-age}.
+     */
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return builtAt != null
+                    && Duration.between(builtAt, clock.instant()).compareTo(properties.getMaxAge()) <= 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void rebuild(Collection<Post> allPosts) {
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            posts.clear();
+            termsByPost.clear();
+            allPosts.forEach(this::add);
+            builtAt = clock.instant();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Adds a post, or replaces the indexed version of it.
+     */
+    public void index(Post post) {
+        if (post == null || post.getId() == null) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (builtAt == null) {
+                return;
+            }
+            remove(post.getId(), false);
+            add(post);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long id) {
+        lock.writeLock().lock();
+        try {
+            remove(id, true);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Posts matching every term of the query, optionally restricted to a user, ordered by id.
+     */
+    public List<Post> search(String query, Long userId) {
+        List<String> terms = Arrays.stream(query.trim().split("\\s+"))
+                .filter(term -> !term.isEmpty())
+                .toList();
+
+        lock.readLock().lock();
+        try {
+            List<NavigableSet<Long>> matches = new ArrayList<>();
+            for (String term : terms) {
+                if (term.endsWith("*")) {
+                    matches.add(prefixPostings(normalize(term.substring(0, term.length() - 1))));
+                } else {
+                    for (String token : tokenize(term)) {
+                        matches.add(postings.getOrDefault(token, new TreeSet<>()));
+                    }
+                }
+            }
+            if (matches.isEmpty()) {
+                return List.of();
+            }
+
+            // Walk the shortest posting list and probe the others
+            matches.sort(Comparator.comparingInt(Set::size));
+            List<Post> result = new ArrayList<>();
+            for (Long id : matches.get(0)) {
+                if (matches.stream().skip(1).allMatch(postingList -> postingList.contains(id))) {
+                    Post post = posts.get(id);
+                    if (userId == null || userId.equals(post.getUserId())) {
+                        result.add(post);
+                    }
+                }
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private NavigableSet<Long> prefixPostings(String prefix) {
+        if (prefix.isEmpty()) {
+            return new TreeSet<>(posts.keySet());
+        }
+        NavigableSet<Long> union = new TreeSet<>();
+        postings.subMap(prefix, true, prefix + Character.MAX_VALUE, false)
+                .values()
+                .forEach(union::addAll);
+        return union;
+    }
+
+    private void add(Post post) {
+        Set<String> terms = new TreeSet<>(tokenize(post.getTitle()));
+        if (properties.isIncludeBody()) {
+            terms.addAll(tokenize(post.getBody()));
+        }
+        posts.put(post.getId(), post);
+        termsByPost.put(post.getId(), terms);
+        for (String term : terms) {
+            postings.computeIfAbsent(term, key -> new TreeSet<>()).add(post.getId());
+        }
+    }
+
+    private void remove(Long id, boolean dropDocument) {
+        Set<String> terms = termsByPost.remove(id);
+        if (terms != null) {
+            for (String term : terms) {
+                TreeSet<Long> postingList = postings.get(term);
+                postingList.remove(id);
+                if (postingList.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+        if (dropDocument) {
+            posts.remove(id);
+        }
+    }
+
+    static List<String> tokenize(String text) {
+        if (text == null) {
+            return List.of();
+        }
+        return Arrays.stream(normalize(text).split("[^\\p{L}\\p{Nd}]+"))
+                .filter(token -> !token.isEmpty())
+                .toList();
+    }
+
+    private static String normalize(String text) {
+        return text.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,175 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.CacheProperties;
+import com.fake.api.jsonplaceholder.model.Comment;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * In-process read-through cache for the GET operations of {@link PostsService}.
+ * Each resource has its own size bound and TTL; eviction is Caffeine's W-TinyLFU.
+ * Hit, miss and eviction counters are published as the {@code cache.*} metrics.
+ * <p>
+ * Every entry also has a stale copy that outlives it by {@code cache.stale-window}. Stale
+ * copies are only read through the {@code getStale*} methods, when the upstream cannot answer.
+ * <p>
+ * Ids the upstream answered 404 for are remembered for {@code cache.not-found.ttl}, so they are
+ * answered locally; creating or updating a post forgets them.
+ */
+@Component
+public class PostsCache implements MeterBinder {
+
+    private record PostsKey(Long userId, String title) {}
+
+    private record CommentsKey(String postId, Long commentId) {}
+
+    private final boolean enabled;
+    private final Cache<PostsKey, List<Post>> posts;
+    private final Cache<String, Post> post;
+    private final Cache<CommentsKey, List<Comment>> comments;
+    private final Cache<PostsKey, List<Post>> stalePosts;
+    private final Cache<String, Post> stalePost;
+    private final Cache<CommentsKey, List<Comment>> staleComments;
+    private final Cache<String, Boolean> missingPosts;
+    private final Cache<CommentsKey, Boolean> missingComments;
+
+    public PostsCache(CacheProperties properties) {
+        this.enabled = properties.isEnabled();
+        this.posts = build(properties.getPosts());
+        this.post = build(properties.getPost());
+        this.comments = build(properties.getComments());
+        this.stalePosts = buildStale(properties.getPosts(), properties.getStaleWindow());
+        this.stalePost = buildStale(properties.getPost(), properties.getStaleWindow());
+        this.staleComments = buildStale(properties.getComments(), properties.getStaleWindow());
+        this.missingPosts = build(properties.getNotFound());
+        this.missingComments = build(properties.getNotFound());
+    }
+
+    private static <K, V> Cache<K, V> build(CacheProperties.Spec spec) {
+        return Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(spec.getTtl())
+                .recordStats()
+                .build();
+    }
+
+    // Holds the same values as the fresh cache, so it only costs the entries
+    private static <K, V> Cache<K, V> buildStale(CacheProperties.Spec spec, Duration staleWindow) {
+        return Caffeine.newBuilder()
+                .maximumSize(spec.getMaximumSize())
+                .expireAfterWrite(spec.getTtl().plus(staleWindow))
+                .build();
+    }
+
+    public List<Post> getPosts(Long userId, String title) {
+        return enabled ? posts.getIfPresent(new PostsKey(userId, title)) : null;
+    }
+
+    public List<Post> getStalePosts(Long userId, String title) {
+        return enabled ? stalePosts.getIfPresent(new PostsKey(userId, title)) : null;
+    }
+
+    public void putPosts(Long userId, String title, List<Post> value) {
+        if (enabled && value != null) {
+            posts.put(new PostsKey(userId, title), value);
+            stalePosts.put(new PostsKey(userId, title), value);
+        }
+    }
+
+    public Post getPost(String id) {
+        return enabled ? post.getIfPresent(id) : null;
+    }
+
+    public Post getStalePost(String id) {
+        return enabled ? stalePost.getIfPresent(id) : null;
+    }
+
+    public void putPost(String id, Post value) {
+        if (enabled && value != null) {
+            post.put(id, value);
+            stalePost.put(id, value);
+        }
+    }
+
+    public List<Comment> getComments(String postId, Long commentId) {
+        return enabled ? comments.getIfPresent(new CommentsKey(postId, commentId)) : null;
+    }
+
+    public List<Comment> getStaleComments(String postId, Long commentId) {
+        return enabled ? staleComments.getIfPresent(new CommentsKey(postId, commentId)) : null;
+    }
+
+    public void putComments(String postId, Long commentId, List<Comment> value) {
+        if (enabled && value != null) {
+            comments.put(new CommentsKey(postId, commentId), value);
+            staleComments.put(new CommentsKey(postId, commentId), value);
+        }
+    }
+
+    public boolean isPostMissing(String id) {
+        return enabled && missingPosts.getIfPresent(id) != null;
+    }
+
+    public void putPostMissing(String id) {
+        if (enabled) {
+            missingPosts.put(id, Boolean.TRUE);
+        }
+    }
+
+    public boolean isCommentsMissing(String postId, Long commentId) {
+        return enabled && missingComments.getIfPresent(new CommentsKey(postId, commentId)) != null;
+    }
+
+    public void putCommentsMissing(String postId, Long commentId) {
+        if (enabled) {
+            missingComments.put(new CommentsKey(postId, commentId), Boolean.TRUE);
+        }
+    }
+
+    /**
+     * A new post may belong to any cached list, so every list is dropped. Its id is not known
+     * beforehand, so every remembered 404 is dropped too.
+     */
+    public void onPostCreated() {
+        posts.invalidateAll();
+        stalePosts.invalidateAll();
+        missingPosts.invalidateAll();
+        missingComments.invalidateAll();
+    }
+
+    /**
+     * The post may move between cached lists, so every list is dropped. Only the 404s remembered
+     * for its own id are dropped, the others still hold.
+     */
+    public void onPostUpdated(String id) {
+        post.invalidate(id);
+        stalePost.invalidate(id);
+        posts.invalidateAll();
+        stalePosts.invalidateAll();
+        missingPosts.invalidate(id);
+        missingComments.asMap().keySet().removeIf(key -> key.postId().equals(id));
+    }
+
+    public void onPostDeleted(String id) {
+        onPostUpdated(id);
+        comments.asMap().keySet().removeIf(key -> key.postId().equals(id));
+        staleComments.asMap().keySet().removeIf(key -> key.postId().equals(id));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, posts, "posts");
+        CaffeineCacheMetrics.monitor(registry, post, "post");
+        CaffeineCacheMetrics.monitor(registry, comments, "comments");
+        CaffeineCacheMetrics.monitor(registry, missingPosts, "missingPosts");
+        CaffeineCacheMetrics.monitor(registry, missingComments, "missingComments");
+    }
+}
@@ -0,0 +1,204 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ExportProperties;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.xml.namespace.QName;
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Writes the posts.json and posts.xml exports. Both files are produced at the same time,
+ * post by post through streaming generators, into temporary files that are fsynced and
+ * then atomically renamed over the previous export, so readers never see a partial file.
+ * A {@code fields} projection limits the properties written for each post.
+ * Serialization time and serialized bytes of each format are published as the
+ * {@code export.serialization} and {@code export.size} metrics.
+ */
+@Component
+@Slf4j
+public class PostsExporter implements MeterBinder {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ExportProperties properties;
+    private final ObjectMapper jsonMapper = FieldProjection.register(new ObjectMapper()
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE));
+    private final XmlMapper xmlMapper = FieldProjection.register((XmlMapper) new XmlMapper()
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE));
+
+    // Set once bound, nothing is recorded before
+    private volatile MeterRegistry registry;
+
+    public PostsExporter(ExportProperties properties) {
+        this.properties = properties;
+    }
+
+    public Mono<Void> export(List<Post> posts) {
+        return export(posts, null);
+    }
+
+    /**
+     * Exports only the {@code fields} of each post, every property when null.
+     */
+    public Mono<Void> export(List<Post> posts, Set<String> fields) {
+        return Mono.when(
+                write("posts.json", posts, timed("json", (out, p) -> writeJson(out, p, fields))),
+                write("posts.xml", posts, timed("xml", (out, p) -> writeXml(out, p, fields))));
+    }
+
+    /**
+     * Whether both export files are present in the export directory.
+     */
+    public boolean hasExport() {
+        return Files.exists(target("posts.json")) && Files.exists(target("posts.xml"));
+    }
+
+    private Path target(String fileName) {
+        return Path.of(properties.getDirectory()).resolve(properties.isGzip() ? fileName + ".gz" : fileName);
+    }
+
+    private Mono<Void> write(String fileName, List<Post> posts, PostsWriter writer) {
+        // File I/O is blocking, keep it off the event loop
+        return Mono.<Void>fromRunnable(() -> {
+            try {
+                writeAtomically(fileName, posts, writer);
+            } catch (IOException e) {
+                throw new RuntimeException("Error saving posts as " + fileName, e);
+            }
+        }).subscribeOn(Schedulers.boundedElastic());
+    }
+
+    private void writeAtomically(String fileName, List<Post> posts, PostsWriter writer) throws IOException {
+        Path directory = Path.of(properties.getDirectory());
+        Files.createDirectories(directory);
+        Path target = target(fileName);
+        Path temp = Files.createTempFile(directory, fileName + ".", ".tmp");
+
+        try {
+            try (FileOutputStream file = new FileOutputStream(temp.toFile())) {
+                OutputStream out = new BufferedOutputStream(file, BUFFER_SIZE);
+                if (properties.isGzip()) {
+                    // Closing the gzip stream releases its native deflater, the file stays open to be forced
+                    try (GZIPOutputStream gzip = new GZIPOutputStream(StreamUtils.nonClosing(out), BUFFER_SIZE)) {
+                        writer.write(gzip, posts);
+                    }
+                } else {
+                    writer.write(out, posts);
+                }
+
+                out.flush();
+                file.getChannel().force(true);
+            }
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        log.debug("Exported {} posts to {}", posts.size(), target);
+    }
+
+    void writeJson(OutputStream out, List<Post> posts, Set<String> fields) throws IOException {
+        ObjectWriter writer = FieldProjection.writer(jsonMapper, fields);
+        try (JsonGenerator generator = jsonMapper.createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            for (Post post : posts) {
+                writer.writeValue(generator, post);
+            }
+            generator.writeEndArray();
+        }
+    }
+
+    void writeXml(OutputStream out, List<Post> posts, Set<String> fields) throws IOException {
+        ObjectWriter writer = FieldProjection.writer(xmlMapper, fields);
+        try (ToXmlGenerator generator = xmlMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.setNextName(new QName("List"));
+            generator.writeStartObject();
+            for (Post post : posts) {
+                generator.writeFieldName("item");
+                writer.writeValue(generator, post);
+            }
+            generator.writeEndObject();
+        }
+    }
+
+    private PostsWriter timed(String format, PostsWriter writer) {
+        return (out, posts) -> {
+            MeterRegistry meters = registry;
+            if (meters == null) {
+                writer.write(out, posts);
+                return;
+            }
+            CountingOutputStream counting = new CountingOutputStream(out);
+            long start = System.nanoTime();
+            writer.write(counting, posts);
+            Timer.builder("export.serialization")
+                    .description("Time to serialize the posts of an export")
+                    .tag("format", format)
+                    .register(meters)
+                    .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            DistributionSummary.builder("export.size")
+                    .description("Serialized size of an export, before compression")
+                    .baseUnit("bytes")
+                    .tag("format", format)
+                    .register(meters)
+                    .record(counting.count);
+        };
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @FunctionalInterface
+    private interface PostsWriter {
+        void write(OutputStream out, List<Post> posts) throws IOException;
+    }
+
+    private static class CountingOutputStream extends FilterOutputStream {
+        private long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
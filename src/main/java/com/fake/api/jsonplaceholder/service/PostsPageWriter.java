@@ -0,0 +1,181 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.model.ExportJob;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.dataformat.xml.ser.ToXmlGenerator;
+
+import javax.xml.namespace.QName;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Writes posts in one export format a page at a time, so a whole export never has to be held
+ * in memory. JSON and XML keep their generator open between pages; NDJSON and CSV write one
+ * line per post. A {@code fields} projection limits the properties, or CSV columns, written.
+ */
+abstract class PostsPageWriter {
+
+    private static final ObjectMapper JSON_MAPPER = FieldProjection.register(new ObjectMapper()
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE));
+    private static final XmlMapper XML_MAPPER = FieldProjection.register((XmlMapper) new XmlMapper()
+            .disable(SerializationFeature.FLUSH_AFTER_WRITE_VALUE));
+
+    // CSV columns in the order of the properties of Post
+    private static final Map<String, Function<Post, Object>> CSV_COLUMNS = new LinkedHashMap<>();
+
+    static {
+        CSV_COLUMNS.put("id", Post::getId);
+        CSV_COLUMNS.put("userId", Post::getUserId);
+        CSV_COLUMNS.put("title", Post::getTitle);
+        CSV_COLUMNS.put("body", Post::getBody);
+    }
+
+    static PostsPageWriter open(ExportJob.Format format, OutputStream out, Set<String> fields) throws IOException {
+        return switch (format) {
+            case JSON -> new JsonWriter(out, fields);
+            case XML -> new XmlWriter(out, fields);
+            case NDJSON -> new NdjsonWriter(out, fields);
+            case CSV -> new CsvWriter(out, fields);
+        };
+    }
+
+    abstract void write(List<Post> page) throws IOException;
+
+    /**
+     * Ends the document and flushes it, the stream is left open.
+     */
+    abstract void finish() throws IOException;
+
+    private static class JsonWriter extends PostsPageWriter {
+        private final JsonGenerator generator;
+        private final ObjectWriter writer;
+
+        JsonWriter(OutputStream out, Set<String> fields) throws IOException {
+            this.writer = FieldProjection.writer(JSON_MAPPER, fields);
+            this.generator = JSON_MAPPER.createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+        }
+
+        @Override
+        void write(List<Post> page) throws IOException {
+            for (Post post : page) {
+                writer.writeValue(generator, post);
+            }
+        }
+
+        @Override
+        void finish() throws IOException {
+            generator.writeEndArray();
+            generator.close();
+        }
+    }
+
+    private static class XmlWriter extends PostsPageWriter {
+        private final ToXmlGenerator generator;
+        private final ObjectWriter writer;
+
+        XmlWriter(OutputStream out, Set<String> fields) throws IOException {
+            this.writer = FieldProjection.writer(XML_MAPPER, fields);
+            this.generator = XML_MAPPER.getFactory().createGenerator(out);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Same document as posts.xml
+            generator.setNextName(new QName("List"));
+            generator.writeStartObject();
+        }
+
+        @Override
+        void write(List<Post> page) throws IOException {
+            for (Post post : page) {
+                generator.writeFieldName("item");
+                writer.writeValue(generator, post);
+            }
+        }
+
+        @Override
+        void finish() throws IOException {
+            generator.writeEndObject();
+            generator.close();
+        }
+    }
+
+    private static class NdjsonWriter extends PostsPageWriter {
+        private final OutputStream out;
+        private final ObjectWriter writer;
+
+        NdjsonWriter(OutputStream out, Set<String> fields) {
+            this.out = out;
+            this.writer = FieldProjection.writer(JSON_MAPPER, fields);
+        }
+
+        @Override
+        void write(List<Post> page) throws IOException {
+            for (Post post : page) {
+                out.write(writer.writeValueAsBytes(post));
+                out.write('\n');
+            }
+        }
+
+        @Override
+        void finish() throws IOException {
+            out.flush();
+        }
+    }
+
+    // RFC 4180: CRLF line endings, values with separators, quotes or line breaks are quoted
+    private static class CsvWriter extends PostsPageWriter {
+        private final Writer out;
+        private final List<Function<Post, Object>> columns;
+
+        CsvWriter(OutputStream out, Set<String> fields) throws IOException {
+            this.out = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            List<String> names = CSV_COLUMNS.keySet().stream()
+                    .filter(name -> fields == null || fields.contains(name))
+                    .toList();
+            this.columns = names.stream().map(CSV_COLUMNS::get).toList();
+            this.out.write(String.join(",", names));
+            this.out.write("\r\n");
+        }
+
+        @Override
+        void write(List<Post> page) throws IOException {
+            for (Post post : page) {
+                for (int i = 0; i < columns.size(); i++) {
+                    if (i > 0) {
+                        out.write(',');
+                    }
+                    Object value = columns.get(i).apply(post);
+                    if (value != null) {
+                        out.write(quote(value.toString()));
+                    }
+                }
+                out.write("\r\n");
+            }
+        }
+
+        @Override
+        void finish() throws IOException {
+            out.flush();
+        }
+
+        private static String quote(String value) {
+            if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+                return value;
+            }
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ReplicaProperties;
+import com.fake.api.jsonplaceholder.model.Comment;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fake.api.jsonplaceholder.model.PostChange;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Local materialized copy of all posts and comments, bulk loaded at startup and then every
+ * {@code replica.refresh-interval}. Posts are indexed by id and userId, comments by postId.
+ * Lookups return {@code null} when the replica cannot answer (disabled, not loaded yet, older
+ * than {@code replica.max-staleness}, unknown id or touched by a write since the last load),
+ * in which case the caller falls back to the upstream.
+ * <p>
+ * Each load is also saved as a {@link PostsSnapshot}. At startup the saved copy is served until
+ * the first load completes, as long as it is within {@code replica.max-staleness} of when it was taken.
+ * Posts created, changed or removed upstream between two loads are recorded in the {@link ChangeLog}.
+ */
+@Component
+@Slf4j
+public class PostsReplica implements MeterBinder {
+
+    private record Snapshot(Map<Long, Post> postsById, Map<Long, List<Post>> postsByUserId, List<Post> posts,
+                            Map<Long, List<Comment>> commentsByPostId, Instant loadedAt, long generation) {}
+
+    private final ReplicaProperties properties;
+    private final WebClient webClient;
+    private final PostsSnapshot postsSnapshot;
+    private final ChangeLog changeLog;
+    private final Clock clock;
+
+    private volatile Snapshot snapshot;
+    private Disposable refreshTask;
+
+    // Writes bump the generation; data touched after the snapshot was taken is not served from it
+    private final AtomicLong generation = new AtomicLong();
+    private final AtomicLong listsGeneration = new AtomicLong();
+    private final ConcurrentMap<String, Long> dirtyPosts = new ConcurrentHashMap<>();
+
+    @Autowired
+    public PostsReplica(ReplicaProperties properties, WebClient webClient, PostsSnapshot postsSnapshot,
+                        ChangeLog changeLog) {
+        this(properties, webClient, postsSnapshot, changeLog, Clock.systemUTC());
+    }
+
+    PostsReplica(ReplicaProperties properties, WebClient webClient, PostsSnapshot postsSnapshot, ChangeLog changeLog,
+                 Clock clock) {
+        this.properties = properties;
+        this.webClient = webClient;
+        this.postsSnapshot = postsSnapshot;
+        this.changeLog = changeLog;
+        this.clock = clock;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        if (properties.isSnapshot()) {
+            warmStart();
+        }
+        refreshTask = Flux.interval(Duration.ZERO, properties.getRefreshInterval())
+                .onBackpressureDrop()
+                .concatMap(tick -> refresh().onErrorResume(e -> {
+                    log.warn("Replica refresh failed, keeping the previous copy: {}", e.getMessage());
+                    return Mono.empty();
+                }))
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (refreshTask != null) {
+            refreshTask.dispose();
+        }
+    }
+
+    /**
+     * Loads the saved snapshot, if any, so reads are served before the first bulk load.
+     */
+    void warmStart() {
+        long start = System.nanoTime();
+        postsSnapshot.read().ifPresent(contents -> {
+            load(contents.posts(), contents.comments(), generation.get(), contents.writtenAt());
+            log.info("Replica warm started from the snapshot of {} in {} ms",
+                    contents.writtenAt(), (System.nanoTime() - start) / 1_000_000);
+        });
+    }
+
+    /**
+     * Bulk loads all posts and comments and swaps them in as the new copy.
+     */
+    public Mono<Void> refresh() {
+        return Mono.defer(() -> {
+            long startGeneration = generation.get();
+            Mono<List<Post>> posts = webClient.get().uri("/posts").retrieve().bodyToFlux(Post.class).collectList();
+            Mono<List<Comment>> comments = webClient.get().uri("/comments").retrieve().bodyToFlux(Comment.class).collectList();
+
+            return Mono.zip(posts, comments)
+                    .flatMap(loaded -> {
+                        // The snapshot file is stamped with this load, not with whatever copy is current when it is saved
+                        Instant loadedAt = clock.instant();
+                        load(loaded.getT1(), loaded.getT2(), startGeneration, loadedAt);
+                        return saveSnapshot(loaded.getT1(), loaded.getT2(), loadedAt);
+                    });
+        });
+    }
+
+    private Mono<Void> saveSnapshot(List<Post> posts, List<Comment> comments, Instant loadedAt) {
+        if (!properties.isSnapshot()) {
+            return Mono.empty();
+        }
+        // File I/O is blocking, keep it off the event loop; a failed save keeps the loaded copy
+        return Mono.<Void>fromRunnable(() -> {
+                    try {
+                        postsSnapshot.write(posts, comments, loadedAt);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })
+                .subscribeOn(Schedulers.boundedElastic())
+                .onErrorResume(e -> {
+                    log.warn("Replica snapshot not saved: {}", e.getMessage());
+                    return Mono.empty();
+                });
+    }
+
+    void load(List<Post> posts, List<Comment> comments, long startGeneration) {
+        load(posts, comments, startGeneration, clock.instant());
+    }
+
+    private void load(List<Post> posts, List<Comment> comments, long startGeneration, Instant loadedAt) {
+        Map<Long, Post> postsById = new LinkedHashMap<>();
+        posts.forEach(post -> postsById.put(post.getId(), post));
+        Map<Long, List<Post>> postsByUserId = posts.stream()
+                .filter(post -> post.getUserId() != null)
+                .collect(Collectors.groupingBy(Post::getUserId, Collectors.toUnmodifiableList()));
+        Map<Long, List<Comment>> commentsByPostId = comments.stream()
+                .filter(comment -> comment.getPostId() != null)
+                .collect(Collectors.groupingBy(Comment::getPostId, Collectors.toUnmodifiableList()));
+
+        Snapshot previous = snapshot;
+        snapshot = new Snapshot(Map.copyOf(postsById), Map.copyOf(postsByUserId), List.copyOf(posts),
+                Map.copyOf(commentsByPostId), loadedAt, startGeneration);
+        if (previous != null) {
+            recordChanges(previous, postsById);
+        }
+        dirtyPosts.values().removeIf(dirtyGeneration -> dirtyGeneration <= startGeneration);
+        log.info("Replica loaded {} posts and {} comments", posts.size(), comments.size());
+    }
+
+    // In upstream order, as the posts were listed
+    private void recordChanges(Snapshot previous, Map<Long, Post> postsById) {
+        postsById.forEach((id, post) -> {
+            Post old = previous.postsById().get(id);
+            if (old == null) {
+                changeLog.append(PostChange.Type.CREATED, PostChange.Source.UPSTREAM, id, post);
+            } else if (!old.equals(post)) {
+                changeLog.append(PostChange.Type.UPDATED, PostChange.Source.UPSTREAM, id, post);
+            }
+        });
+        previous.posts().stream()
+                .map(Post::getId)
+                .filter(id -> !postsById.containsKey(id))
+                .forEach(id -> changeLog.append(PostChange.Type.DELETED, PostChange.Source.UPSTREAM, id, null));
+    }
+
+    public List<Post> getPosts(Long userId, String title) {
+        Snapshot current = usableSnapshot();
+        if (current == null || listsGeneration.get() > current.generation()) {
+            return null;
+        }
+
+        List<Post> posts = userId != null ? current.postsByUserId().getOrDefault(userId, List.of()) : current.posts();
+        if (title != null) {
+            posts = posts.stream().filter(post -> title.equals(post.getTitle())).toList();
+        }
+        return posts;
+    }
+
+    public Post getPost(String id) {
+        Snapshot current = usableSnapshot();
+        Long postId = parseId(id);
+        if (current == null || postId == null || isDirty(id, current)) {
+            return null;
+        }
+        return current.postsById().get(postId);
+    }
+
+    public List<Comment> getComments(String postId, Long commentId) {
+        Snapshot current = usableSnapshot();
+        Long id = parseId(postId);
+        if (current == null || id == null || isDirty(postId, current) || !current.postsById().containsKey(id)) {
+            return null;
+        }
+
+        List<Comment> comments = current.commentsByPostId().getOrDefault(id, List.of());
+        if (commentId != null) {
+            comments = comments.stream().filter(comment -> commentId.equals(comment.getId())).toList();
+        }
+        return comments;
+    }
+
+    public void onPostCreated() {
+        listsGeneration.set(generation.incrementAndGet());
+    }
+
+    public void onPostUpdated(String id) {
+        long dirtyGeneration = generation.incrementAndGet();
+        dirtyPosts.put(id, dirtyGeneration);
+        listsGeneration.set(dirtyGeneration);
+    }
+
+    public void onPostDeleted(String id) {
+        onPostUpdated(id);
+    }
+
+    private Snapshot usableSnapshot() {
+        Snapshot current = snapshot;
+        if (!properties.isEnabled() || current == null) {
+            return null;
+        }
+        if (Duration.between(current.loadedAt(), clock.instant()).compareTo(properties.getMaxStaleness()) > 0) {
+            return null;
+        }
+        return current;
+    }
+
+    private boolean isDirty(String id, Snapshot current) {
+        Long dirtyGeneration = dirtyPosts.get(id);
+        return dirtyGeneration != null && dirtyGeneration > current.generation();
+    }
+
+    private static Long parseId(String id) {
+        try {
+            return Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("replica.age", this, replica -> {
+                    Snapshot current = replica.snapshot;
+                    return current == null ? Double.NaN : Duration.between(current.loadedAt(), replica.clock.instant()).toMillis() / 1000.0;
+                })
+                .baseUnit("seconds")
+                .description("Time since the replica was last loaded")
+                .register(registry);
+        Gauge.builder("replica.posts", this, replica -> {
+                    Snapshot current = replica.snapshot;
+                    return current == null ? 0 : current.posts().size();
+                })
+                .description("Posts held by the replica")
+                .register(registry);
+    }
+}
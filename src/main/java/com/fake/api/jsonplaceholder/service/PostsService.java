@@ -1,182 +1,468 @@
 package com.fake.api.jsonplaceholder.service;
 
+import com.fake.api.jsonplaceholder.exception.ErrorStatus;
 import com.fake.api.jsonplaceholder.exception.NotFoundException;
+import com.fake.api.jsonplaceholder.exception.UpstreamException;
+import com.fake.api.jsonplaceholder.model.BatchItem;
 import com.fake.api.jsonplaceholder.model.Comment;
+import com.fake.api.jsonplaceholder.model.ExportDelta;
 import com.fake.api.jsonplaceholder.model.Post;
+import com.fake.api.jsonplaceholder.model.PostChange;
+import com.fake.api.jsonplaceholder.model.PostWithComments;
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
 import org.springframework.stereotype.Service;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.io.File;
-import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 @Slf4j
 public class PostsService {
-    @Value("${base.url}")
-    private String BASE_URL;
+    @Value("${batch.max-concurrency:8}")
+    private int batchMaxConcurrency = 8;
+
+    @Value("${batch.max-ids:100}")
+    private int batchMaxIds = 100;
+
+    @Value("${embed.max-posts-per-call:50}")
+    private int embedMaxPostsPerCall = 50;
+
+    // Leaves null fields out, so a merge only overlays the fields that were sent
+    private final ObjectMapper mergeMapper = Jackson2ObjectMapperBuilder.json()
+            .serializationInclusion(JsonInclude.Include.NON_NULL)
+            .build();
 
     @Autowired
-    private WebClient.Builder webClientBuilder;
+    private WebClient webClient;
+
+    @Autowired
+    private PostsCache postsCache;
+
+    @Autowired
+    private PostsReplica postsReplica;
+
+    @Autowired
+    private EncodedResponseCache encodedResponseCache;
+
+    @Autowired
+    private ChangeLog changeLog;
+
+    @Autowired
+    private RequestCoalescer requestCoalescer;
+
+    @Autowired
+    private RequestHedger requestHedger;
+
+    @Autowired
+    private UpstreamResilience upstreamResilience;
+
+    @Autowired
+    private AdaptiveLimiter adaptiveLimiter;
+
+    @Autowired
+    private PostSearchIndex postSearchIndex;
+
+    @Autowired
+    private PostsExporter postsExporter;
+
+    @Autowired
+    private IncrementalPostsExporter incrementalPostsExporter;
+
+    public Mono<ResponseEntity<List<Post>>> getPosts(Long userId, String title) {
+        List<Post> cached = localPosts(userId, title);
+        if (cached != null) {
+            return Mono.just(new ResponseEntity<>(cached, HttpStatus.OK));
+        }
 
-    public ResponseEntity<List<Post>> getPosts(Long userId, String title) {
-        String userIdParam = userId != null ? "userId=" + userId : "";
-        String titleParam = title != null ? "title=" + title : "";
         // Get the response from the client
-        Mono<ResponseEntity<Post[]>> responseClient;
+        Mono<ResponseEntity<Post[]>> responseClient = callWebClientGet(postsUri(userId, title), Post[].class);
 
-        if (!userIdParam.isEmpty() && !titleParam.isEmpty()) {
-            responseClient = callWebClientGet("/posts?" + userIdParam + "&" + titleParam, Post[].class);
-        } else if (!userIdParam.isEmpty()) {
-            responseClient = callWebClientGet("/posts?" + userIdParam, Post[].class);
-        } else if (!titleParam.isEmpty()) {
-            responseClient = callWebClientGet("/posts?" + titleParam, Post[].class);
-        } else {
-            responseClient = callWebClientGet("/posts", Post[].class);
+        return responseClient.map(responseEntity -> {
+            List<Post> posts = List.of(responseEntity.getBody());
+            postsCache.putPosts(userId, title, posts);
+
+            return new ResponseEntity<>(posts, responseEntity.getStatusCode());
+        }).onErrorResume(UpstreamResilience::isUnavailable, e -> staleOr(e, postsCache.getStalePosts(userId, title)));
+    }
+
+    /**
+     * Searches titles (and bodies, if indexed) through the local index instead of the upstream.
+     * The index is built from the full list of posts on first use and whenever it gets too old.
+     */
+    public Mono<ResponseEntity<List<Post>>> searchPosts(String query, Long userId, String title) {
+        Mono<Void> indexReady = postSearchIndex.isReady()
+                ? Mono.empty()
+                : getPosts(null, null).doOnNext(posts -> postSearchIndex.rebuild(posts.getBody())).then();
+
+        return indexReady.then(Mono.fromSupplier(() -> {
+            List<Post> posts = postSearchIndex.search(query, userId);
+            if (title != null) {
+                posts = posts.stream().filter(post -> title.equals(post.getTitle())).toList();
+            }
+            return new ResponseEntity<>(posts, HttpStatus.OK);
+        }));
+    }
+
+    /**
+     * Streaming variant of {@link #getPosts(Long, String)}: posts are decoded from the upstream
+     * body one at a time and emitted as they arrive, without collecting the whole array.
+     */
+    public Flux<Post> streamPosts(Long userId, String title) {
+        List<Post> cached = localPosts(userId, title);
+        if (cached != null) {
+            return Flux.fromIterable(cached);
         }
 
-        ResponseEntity<Post[]> responseEntity = responseClient.block();
+        return callWebClientGetFlux(postsUri(userId, title), Post.class);
+    }
+
+    /**
+     * Paged variant of {@link #getPosts(Long, String)}: posts are fetched {@code pageSize} at a time
+     * with the upstream's {@code _page} and {@code _limit} parameters, the next page once the
+     * previous one was consumed. A local copy, when there is one, is split into pages instead.
+     */
+    public Flux<List<Post>> getPostPages(Long userId, String title, int pageSize) {
+        List<Post> cached = localPosts(userId, title);
+        if (cached != null) {
+            return Flux.fromIterable(cached).buffer(pageSize);
+        }
 
-        return new ResponseEntity<>(List.of(responseEntity.getBody()), responseEntity.getStatusCode());
+        String uri = postsUri(userId, title);
+        String pagedUri = uri + (uri.contains("?") ? "&" : "?") + "_limit=" + pageSize + "&_page=";
+        // A page shorter than pageSize is the last one
+        return Flux.range(1, Integer.MAX_VALUE)
+                .concatMap(page -> callWebClientGet(pagedUri + page, Post[].class)
+                        .map(responseEntity -> List.of(responseEntity.getBody())), 0)
+                .takeUntil(posts -> posts.size() < pageSize)
+                .filter(posts -> !posts.isEmpty());
     }
 
-    public ResponseEntity<Post> getPost(String id){
+    public Mono<ResponseEntity<Post>> getPost(String id){
+        Post cached = localPost(id);
+        if (cached != null) {
+            return Mono.just(new ResponseEntity<>(cached, HttpStatus.OK));
+        }
+        if (postsCache.isPostMissing(id)) {
+            return Mono.error(new NotFoundException("Post not found"));
+        }
+
         // Get the response from the client
         Mono<ResponseEntity<Post>> responseClient = callWebClientGet("/posts/" + id, Post.class);
 
-        ResponseEntity<Post> responseEntity = responseClient.block();
+        return responseClient.map(responseEntity -> {
+            postsCache.putPost(id, responseEntity.getBody());
 
-        return new ResponseEntity<>(responseEntity.getBody(), responseEntity.getStatusCode());
+            return new ResponseEntity<>(responseEntity.getBody(), responseEntity.getStatusCode());
+        }).doOnError(NotFoundException.class, e -> postsCache.putPostMissing(id))
+                .onErrorResume(UpstreamResilience::isUnavailable, e -> staleOr(e, postsCache.getStalePost(id)));
     }
 
-    public ResponseEntity<List<Post>> fetchAndSaveData(Long userId, String title) {
-        ResponseEntity<List<Post>> posts = getPosts(userId, title);
-        List<Post> postsList = posts.getBody();
+    /**
+     * {@link #getPosts(Long, String)} with the comments of every post nested in it. Comments not
+     * available locally are fetched in bulk with {@code /comments?postId=...}, in concurrent
+     * calls of at most {@code embed.max-posts-per-call} posts each.
+     */
+    public Mono<ResponseEntity<List<PostWithComments>>> getPostsWithComments(Long userId, String title) {
+        return getPosts(userId, title).flatMap(posts -> commentsByPost(posts.getBody())
+                .map(comments -> new ResponseEntity<>(posts.getBody().stream()
+                        .map(post -> new PostWithComments(post, comments.getOrDefault(post.getId(), List.of())))
+                        .toList(), posts.getStatusCode())));
+    }
 
-        // Save as JSON
-         ObjectMapper jsonMapper = new ObjectMapper();
-         try {
-             jsonMapper.writeValue(new File("posts.json"), postsList);
-         } catch (IOException e) {
-             throw new RuntimeException("Error saving posts as JSON", e);
-         }
+    /**
+     * {@link #getPost(String)} with its comments nested in it; both are fetched concurrently.
+     */
+    public Mono<ResponseEntity<PostWithComments>> getPostWithComments(String id) {
+        return Mono.zip(getPost(id), getComments(id, null))
+                .map(postAndComments -> new ResponseEntity<>(
+                        new PostWithComments(postAndComments.getT1().getBody(), postAndComments.getT2().getBody()),
+                        postAndComments.getT1().getStatusCode()));
+    }
 
-        // Save as XML
-         XmlMapper xmlMapper = new XmlMapper();
-         try {
-             xmlMapper.writeValue(new File("posts.xml"), postsList);
-         } catch (IOException e) {
-             throw new RuntimeException("Error saving posts as XML", e);
-         }
+    private Mono<Map<Long, List<Comment>>> commentsByPost(List<Post> posts) {
+        Map<Long, List<Comment>> comments = new ConcurrentHashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Post post : posts) {
+            List<Comment> local = localComments(String.valueOf(post.getId()), null);
+            if (local != null) {
+                comments.put(post.getId(), local);
+            } else {
+                missing.add(post.getId());
+            }
+        }
 
-        return posts;
+        return Flux.fromIterable(missing)
+                .buffer(embedMaxPostsPerCall)
+                .flatMap(postIds -> callWebClientGet("/comments?" + postIds.stream()
+                        .map(postId -> "postId=" + postId)
+                        .collect(Collectors.joining("&")), Comment[].class)
+                        .doOnNext(responseEntity -> {
+                            // A comment without postId belongs to no post, and would break the grouping
+                            Map<Long, List<Comment>> fetched = Stream.of(responseEntity.getBody())
+                                    .filter(comment -> comment.getPostId() != null)
+                                    .collect(Collectors.groupingBy(Comment::getPostId, Collectors.toUnmodifiableList()));
+                            for (Long postId : postIds) {
+                                List<Comment> postComments = fetched.getOrDefault(postId, List.of());
+                                postsCache.putComments(String.valueOf(postId), null, postComments);
+                                comments.put(postId, postComments);
+                            }
+                        }))
+                .then(Mono.fromSupplier(() -> comments));
     }
 
-    public ResponseEntity<List<Comment>> getComments(String id, Long commentId){
-        String commentIdParam = commentId != null ? "id=" + commentId : "";
-        // Get the response from the client
-        Mono<ResponseEntity<Comment[]>> responseClient;
+    /**
+     * Retrieves several posts at once. Duplicate ids are fetched once, fetches run in parallel
+     * up to {@code batch.max-concurrency}, and results keep the order of the requested ids.
+     * Ids that cannot be retrieved are reported inline rather than failing the whole batch.
+     */
+    public Mono<ResponseEntity<List<BatchItem>>> getPostsBatch(List<String> ids) {
+        List<String> distinctIds = ids.stream().distinct().toList();
+        if (distinctIds.size() > batchMaxIds) {
+            return Mono.error(new IllegalArgumentException("At most " + batchMaxIds + " ids can be requested at once"));
+        }
 
-        if (!commentIdParam.isEmpty()) {
-            responseClient = callWebClientGet("/posts/" + id + "/comments?" + commentIdParam, Comment[].class);
-        } else {
-            responseClient = callWebClientGet("/posts/" + id + "/comments", Comment[].class);
+        return Flux.fromIterable(distinctIds)
+                .flatMap(id -> getPost(id)
+                        .map(post -> new BatchItem(id, post.getStatusCode().value(), post.getBody(), null))
+                        // Same status the post would get when requested alone
+                        .onErrorResume(e -> Mono.just(new BatchItem(id, ErrorStatus.of(e).value(), null, e.getMessage()))),
+                        batchMaxConcurrency)
+                .collectMap(BatchItem::getId)
+                .map(items -> new ResponseEntity<>(distinctIds.stream().map(items::get).toList(), HttpStatus.OK));
+    }
+
+    public Mono<ResponseEntity<List<Post>>> fetchAndSaveData(Long userId, String title, Set<String> fields) {
+        // Save as JSON and XML, with only the projected fields
+        boolean partial = userId != null || title != null || fields != null;
+        return getPosts(userId, title).flatMap(posts -> postsExporter.export(posts.getBody(), fields)
+                // A subset of the posts or of their fields no longer matches the incremental index
+                .then(partial ? incrementalPostsExporter.invalidate() : Mono.empty())
+                .thenReturn(posts));
+    }
+
+    /**
+     * Incremental variant of {@link #fetchAndSaveData(Long, String, Set)} over the whole dataset:
+     * only the posts that changed since the previous run are written.
+     */
+    public Mono<ResponseEntity<ExportDelta>> fetchAndSaveChanges() {
+        return getPosts(null, null).flatMap(posts -> incrementalPostsExporter.export(posts.getBody())
+                .map(delta -> new ResponseEntity<>(delta, posts.getStatusCode())));
+    }
+
+    public Mono<ResponseEntity<List<Comment>>> getComments(String id, Long commentId){
+        List<Comment> cached = localComments(id, commentId);
+        if (cached != null) {
+            return Mono.just(new ResponseEntity<>(cached, HttpStatus.OK));
+        }
+        if (postsCache.isCommentsMissing(id, commentId)) {
+            return Mono.error(new NotFoundException("Post not found"));
         }
 
-        ResponseEntity<Comment[]> responseEntity = responseClient.block();
+        // Get the response from the client
+        Mono<ResponseEntity<Comment[]>> responseClient = callWebClientGet(commentsUri(id, commentId), Comment[].class);
+
+        return responseClient.map(responseEntity -> {
+            List<Comment> comments = List.of(responseEntity.getBody());
+            postsCache.putComments(id, commentId, comments);
+
+            return new ResponseEntity<>(comments, responseEntity.getStatusCode());
+        }).doOnError(NotFoundException.class, e -> postsCache.putCommentsMissing(id, commentId))
+                .onErrorResume(UpstreamResilience::isUnavailable, e -> staleOr(e, postsCache.getStaleComments(id, commentId)));
+    }
+
+    /**
+     * Streaming variant of {@link #getComments(String, Long)}.
+     */
+    public Flux<Comment> streamComments(String id, Long commentId) {
+        List<Comment> cached = localComments(id, commentId);
+        if (cached != null) {
+            return Flux.fromIterable(cached);
+        }
 
-        return new ResponseEntity<>(List.of(responseEntity.getBody()), responseEntity.getStatusCode());
+        return callWebClientGetFlux(commentsUri(id, commentId), Comment.class);
     }
 
-    public ResponseEntity<Post> createPost(Post post){
+    public Mono<ResponseEntity<Post>> createPost(Post post){
         // Get the response from the client
         Mono<ResponseEntity<Post>> responseClient = callWebClientPost("/posts/", post, Post.class);
 
-        ResponseEntity<Post> responseEntity = responseClient.block();
+        return responseClient.map(responseEntity -> {
+            postsCache.onPostCreated();
+            postsReplica.onPostCreated();
+            encodedResponseCache.invalidateAll();
+            postSearchIndex.index(responseEntity.getBody());
+            changeLog.append(PostChange.Type.CREATED, PostChange.Source.API, responseEntity.getBody().getId(), responseEntity.getBody());
 
-        return new ResponseEntity<>(responseEntity.getBody(), responseEntity.getStatusCode());
+            return new ResponseEntity<>(responseEntity.getBody(), responseEntity.getStatusCode());
+        });
     }
 
-    public ResponseEntity<Post> updatePost(String id, Post post){
+    public Mono<ResponseEntity<Post>> updatePost(String id, Post post){
         // Get the response from the client
         Mono<ResponseEntity<Post>> responseClient = callWebClientPut("/posts/" + id, post, Post.class);
 
-        ResponseEntity<Post> responseEntity = responseClient.block();
+        return responseClient.map(responseEntity -> {
+            postsCache.onPostUpdated(id);
+            postsReplica.onPostUpdated(id);
+            encodedResponseCache.invalidateAll();
+            postSearchIndex.index(responseEntity.getBody());
+            changeLog.append(PostChange.Type.UPDATED, PostChange.Source.API, postId(id), responseEntity.getBody());
 
-        return new ResponseEntity<>(responseEntity.getBody(), responseEntity.getStatusCode());
+            return new ResponseEntity<>(responseEntity.getBody(), responseEntity.getStatusCode());
+        });
     }
 
-    public ResponseEntity<Post> patchPost(String id, Post post){
-        // Get the original post
-        ResponseEntity<Post> originalPostResponse = getPost(id);
-        Post originalPost = originalPostResponse.getBody();
+    public Mono<ResponseEntity<Post>> patchPost(String id, Post post){
+        // Get the original post first (local copy if there is one), the patch is only sent once it is known
+        return getPost(id).flatMap(original -> callWebClientPatch("/posts/" + id, post, Post.class)
+                .map(responseEntity -> {
+                    postsCache.onPostUpdated(id);
+                    postsReplica.onPostUpdated(id);
+                    encodedResponseCache.invalidateAll();
 
-        // Get the response from the client
-        Mono<ResponseEntity<Post>> responseClient = callWebClientPatch("/posts/" + id, post, Post.class);
+                    Post updatedPost = combinePosts(original.getBody(), responseEntity.getBody());
+                    postSearchIndex.index(updatedPost);
+                    changeLog.append(PostChange.Type.UPDATED, PostChange.Source.API, postId(id), updatedPost);
 
-        ResponseEntity<Post> responseEntity = responseClient.block();
+                    return new ResponseEntity<>(updatedPost, responseEntity.getStatusCode());
+                }));
+    }
 
-        Post updatedPost = combinePosts(originalPost, responseEntity.getBody());
+    public Mono<ResponseEntity<Void>> deletePost(String id) {
+        Mono<ResponseEntity<Void>> responseClient = callWebClientDelete("/posts/" + id, Void.class);
 
-        return new ResponseEntity<>(updatedPost, responseEntity.getStatusCode());
+        return responseClient.map(responseEntity -> {
+            postsCache.onPostDeleted(id);
+            postsReplica.onPostDeleted(id);
+            encodedResponseCache.invalidateAll();
+            Long postId = postId(id);
+            if (postId != null) {
+                postSearchIndex.remove(postId);
+            }
+            changeLog.append(PostChange.Type.DELETED, PostChange.Source.API, postId, null);
+
+            return new ResponseEntity<>(responseEntity.getStatusCode());
+        });
     }
 
-    public ResponseEntity<Void> deletePost(String id) {
-        Mono<ResponseEntity<Void>> responseClient = callWebClientDelete("/posts/" + id, Void.class);
+    // Reads are served from the replica first, then from the cache
+    private List<Post> localPosts(Long userId, String title) {
+        List<Post> posts = postsReplica.getPosts(userId, title);
+        return posts != null ? posts : postsCache.getPosts(userId, title);
+    }
+
+    private Post localPost(String id) {
+        Post post = postsReplica.getPost(id);
+        return post != null ? post : postsCache.getPost(id);
+    }
+
+    private List<Comment> localComments(String id, Long commentId) {
+        List<Comment> comments = postsReplica.getComments(id, commentId);
+        return comments != null ? comments : postsCache.getComments(id, commentId);
+    }
+
+    private static Long postId(String id) {
+        return id.matches("\\d+") ? Long.valueOf(id) : null;
+    }
+
+    private String postsUri(Long userId, String title) {
+        String userIdParam = userId != null ? "userId=" + userId : "";
+        String titleParam = title != null ? "title=" + title : "";
+
+        if (!userIdParam.isEmpty() && !titleParam.isEmpty()) {
+            return "/posts?" + userIdParam + "&" + titleParam;
+        } else if (!userIdParam.isEmpty()) {
+            return "/posts?" + userIdParam;
+        } else if (!titleParam.isEmpty()) {
+            return "/posts?" + titleParam;
+        } else {
+            return "/posts";
+        }
+    }
 
-        ResponseEntity<Void> responseEntity = responseClient.block();
+    private String commentsUri(String id, Long commentId) {
+        String commentIdParam = commentId != null ? "id=" + commentId : "";
 
-        return new ResponseEntity<>(responseEntity.getStatusCode());
+        if (!commentIdParam.isEmpty()) {
+            return "/posts/" + id + "/comments?" + commentIdParam;
+        } else {
+            return "/posts/" + id + "/comments";
+        }
     }
 
     private <T> Mono<ResponseEntity<T>> callWebClientGet(String uri, Class<T> responseType) {
-        WebClient webClient = webClientBuilder.baseUrl(BASE_URL).build();
-        return webClient.get()
+        // Concurrent identical GETs share a single upstream request, retried when it fails and hedged when it is slow
+        return requestCoalescer.join(responseType.getName() + " " + uri, () -> upstreamResilience.read("GET", uri,
+                () -> requestHedger.hedge(() -> adaptiveLimiter.limit(() -> webClient.get()
+                        .uri(uri)
+                        .exchangeToMono(response -> handleResponse(response, responseType))))));
+    }
+
+    private <T> Flux<T> callWebClientGetFlux(String uri, Class<T> elementType) {
+        return upstreamResilience.stream("GET", uri, () -> adaptiveLimiter.limitMany(() -> webClient.get()
                 .uri(uri)
-                .exchangeToMono(response -> handleResponse(response, responseType));
+                .exchangeToFlux(response -> response.statusCode().is2xxSuccessful()
+                        ? response.bodyToFlux(elementType)
+                        : this.<T>handleError(response).flux())));
     }
 
     private <T> Mono<ResponseEntity<T>> callWebClientPost (String uri, Post body, Class<T> responseType){
-        WebClient webClient = webClientBuilder.baseUrl(BASE_URL).build();
-        return webClient.post()
+        return upstreamResilience.write("POST", uri, () -> adaptiveLimiter.limit(() -> webClient.post()
                 .uri(uri)
                 .body(Mono.just(body), responseType)
-                .exchangeToMono(response -> handleResponse(response, responseType));
+                .exchangeToMono(response -> handleResponse(response, responseType))));
     }
 
     private <T> Mono<ResponseEntity<T>> callWebClientPut (String uri, Post body, Class<T> responseType){
-        WebClient webClient = webClientBuilder.baseUrl(BASE_URL).build();
-        return webClient.put()
+        return upstreamResilience.write("PUT", uri, () -> adaptiveLimiter.limit(() -> webClient.put()
                 .uri(uri)
                 .body(Mono.just(body), responseType)
-                .exchangeToMono(response -> handleResponse(response, responseType));
+                .exchangeToMono(response -> handleResponse(response, responseType))));
     }
 
     private <T> Mono<ResponseEntity<T>> callWebClientPatch (String uri, Post body, Class<T> responseType){
-        WebClient webClient = webClientBuilder.baseUrl(BASE_URL).build();
-        return webClient.patch()
+        return upstreamResilience.write("PATCH", uri, () -> adaptiveLimiter.limit(() -> webClient.patch()
                 .uri(uri)
                 .body(Mono.just(body), responseType)
-                .exchangeToMono(response -> handleResponse(response, responseType));
+                .exchangeToMono(response -> handleResponse(response, responseType))));
     }
 
     private Mono<ResponseEntity<Void>> callWebClientDelete(String uri, Class<Void> responseType) {
-        WebClient webClient = webClientBuilder.baseUrl(BASE_URL).build();
-        return webClient.delete()
+        return upstreamResilience.write("DELETE", uri, () -> adaptiveLimiter.limit(() -> webClient.delete()
                 .uri(uri)
-                .exchangeToMono(response -> handleResponse(response, responseType));
+                .exchangeToMono(response -> handleResponse(response, responseType))));
     }
 
-    private <T> Mono<ResponseEntity<T>> handleResponse(ClientResponse response, Class<T> responseType) {
+    private <T> Mono<ResponseEntity<T>> staleOr(Throwable error, T stale) {
+        if (stale == null) {
+            return Mono.error(error);
+        }
+        log.warn("Upstream unavailable, serving stale data: {}", error.toString());
+        return Mono.just(ResponseEntity.ok()
+                .header(HttpHeaders.WARNING, "110 - \"Response is Stale\"")
+                .body(stale));
+    }
+
+    <T> Mono<ResponseEntity<T>> handleResponse(ClientResponse response, Class<T> responseType) {
         if (response.statusCode().is2xxSuccessful()) {
             if (responseType == Void.class) {
                 return Mono.just(new ResponseEntity<>(response.statusCode()));
@@ -184,34 +470,36 @@ public class PostsService {
                 return response.bodyToMono(responseType).map(body -> new ResponseEntity<>(body, response.statusCode()));
             }
         }
-        else if (response.statusCode().is4xxClientError()) {
+        return handleError(response);
+    }
+
+    private <T> Mono<T> handleError(ClientResponse response) {
+        if (response.statusCode().is4xxClientError()) {
             // Handle client errors (e.g., 404 Not Found)
             if (response.statusCode().equals(HttpStatus.NOT_FOUND)) {
-                throw new NotFoundException("Post not found");
+                return Mono.error(new NotFoundException("Post not found"));
             }
-            throw new RuntimeException("Client error");
+            return Mono.error(new RuntimeException("Client error"));
         }
         else if (response.statusCode().is5xxServerError()) {
             // Handle server errors (e.g., 500 Internal Server Error)
-            throw new RuntimeException("Server error");
+            return Mono.error(new UpstreamException("Server error", response.statusCode().value()));
         }
         else {
             // Handle other status codes as needed
-            throw new RuntimeException("Unexpected error");
+            return Mono.error(new RuntimeException("Unexpected error"));
         }
     }
 
-    private Post combinePosts(Post originalPost, Post updatedPost) {
-        if (updatedPost.getUserId() != null) {
-            originalPost.setUserId(updatedPost.getUserId());
-        }
-        if (updatedPost.getTitle() != null) {
-            originalPost.setTitle(updatedPost.getTitle());
-        }
-        if (updatedPost.getBody() != null) {
-            originalPost.setBody(updatedPost.getBody());
+    Post combinePosts(Post originalPost, Post updatedPost) {
+        // Overlay every non-null field of the update on a copy, the original may be shared through the cache
+        ObjectNode combinedPost = mergeMapper.valueToTree(originalPost);
+        combinedPost.setAll((ObjectNode) mergeMapper.valueToTree(updatedPost));
+        try {
+            return mergeMapper.treeToValue(combinedPost, Post.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot merge post " + originalPost.getId(), e);
         }
-        return originalPost;
     }
 
 }
@@ -0,0 +1,237 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ExportProperties;
+import com.fake.api.jsonplaceholder.model.Comment;
+import com.fake.api.jsonplaceholder.model.Post;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.CRC32;
+
+/**
+ * Binary snapshot of all posts and comments, written to {@code posts.snapshot} in the export
+ * directory and read back through a memory mapping.
+ * <p>
+ * Layout, big-endian: a 32-byte header (magic, version, write time, post and comment counts,
+ * payload length and the CRC32 of the payload), then the payload. The payload starts with a
+ * dictionary holding each distinct string once, followed by one length-prefixed record per post
+ * and per comment. Records refer to strings by dictionary index and start with a bit mask of
+ * their null fields.
+ */
+@Component
+@Slf4j
+public class PostsSnapshot {
+
+    public record Contents(List<Post> posts, List<Comment> comments, Instant writtenAt) {}
+
+    static final String FILE_NAME = "posts.snapshot";
+
+    private static final int MAGIC = 0x50534E50; // "PSNP"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 32;
+    private static final int NULL_REF = -1;
+
+    private final ExportProperties properties;
+
+    public PostsSnapshot(ExportProperties properties) {
+        this.properties = properties;
+    }
+
+    public void write(List<Post> posts, List<Comment> comments, Instant writtenAt) throws IOException {
+        Path directory = Path.of(properties.getDirectory());
+        Files.createDirectories(directory);
+        Path temp = Files.createTempFile(directory, FILE_NAME + ".", ".tmp");
+
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+                channel.write(ByteBuffer.wrap(encode(posts, comments, writtenAt)));
+                channel.force(true);
+            }
+            Files.move(temp, target(), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+        log.debug("Wrote snapshot of {} posts and {} comments to {}", posts.size(), comments.size(), target());
+    }
+
+    /**
+     * Reads the snapshot, empty when there is none or it cannot be decoded.
+     */
+    public Optional<Contents> read() {
+        Path target = target();
+        if (!Files.exists(target)) {
+            return Optional.empty();
+        }
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.READ)) {
+            return Optional.of(decode(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size())));
+        } catch (IOException e) {
+            log.warn("Ignoring snapshot {}: {}", target, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    Path target() {
+        return Path.of(properties.getDirectory()).resolve(FILE_NAME);
+    }
+
+    static byte[] encode(List<Post> posts, List<Comment> comments, Instant writtenAt) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+
+        // Records first, so the dictionary is complete when it is written ahead of them
+        ByteArrayOutputStream records = new ByteArrayOutputStream();
+        ByteArrayOutputStream record = new ByteArrayOutputStream(64);
+        DataOutputStream recordOut = new DataOutputStream(record);
+        for (Post post : posts) {
+            record.reset();
+            recordOut.writeByte(nullMask(post.getId(), post.getUserId()));
+            recordOut.writeLong(orZero(post.getId()));
+            recordOut.writeLong(orZero(post.getUserId()));
+            recordOut.writeInt(ref(post.getTitle(), dictionary, strings));
+            recordOut.writeInt(ref(post.getBody(), dictionary, strings));
+            writeRecord(records, record);
+        }
+        for (Comment comment : comments) {
+            record.reset();
+            recordOut.writeByte(nullMask(comment.getPostId(), comment.getId()));
+            recordOut.writeLong(orZero(comment.getPostId()));
+            recordOut.writeLong(orZero(comment.getId()));
+            recordOut.writeInt(ref(comment.getName(), dictionary, strings));
+            recordOut.writeInt(ref(comment.getEmail(), dictionary, strings));
+            recordOut.writeInt(ref(comment.getBody(), dictionary, strings));
+            writeRecord(records, record);
+        }
+
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(records.size() * 2);
+        DataOutputStream payloadOut = new DataOutputStream(payload);
+        payloadOut.writeInt(strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            payloadOut.writeInt(bytes.length);
+            payloadOut.write(bytes);
+        }
+        records.writeTo(payloadOut);
+        payloadOut.flush();
+
+        byte[] payloadBytes = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(payloadBytes);
+        ByteBuffer snapshot = ByteBuffer.allocate(HEADER_SIZE + payloadBytes.length);
+        snapshot.putInt(MAGIC)
+                .putShort(VERSION)
+                .putShort((short) 0)
+                .putLong(writtenAt.toEpochMilli())
+                .putInt(posts.size())
+                .putInt(comments.size())
+                .putInt(payloadBytes.length)
+                .putInt((int) crc.getValue())
+                .put(payloadBytes);
+        return snapshot.array();
+    }
+
+    static Contents decode(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < HEADER_SIZE || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a posts snapshot");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            throw new IOException("Unsupported snapshot version " + version);
+        }
+        buffer.getShort();
+        Instant writtenAt = Instant.ofEpochMilli(buffer.getLong());
+        int postCount = buffer.getInt();
+        int commentCount = buffer.getInt();
+        int payloadLength = buffer.getInt();
+        int checksum = buffer.getInt();
+        if (payloadLength != buffer.remaining()) {
+            throw new IOException("Truncated snapshot");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice());
+        if ((int) crc.getValue() != checksum) {
+            throw new IOException("Snapshot checksum mismatch");
+        }
+
+        try {
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            List<Post> posts = new ArrayList<>(postCount);
+            for (int i = 0; i < postCount; i++) {
+                int next = buffer.getInt() + buffer.position();
+                byte nulls = buffer.get();
+                posts.add(new Post(orNull(buffer.getLong(), nulls, 0), orNull(buffer.getLong(), nulls, 1),
+                        string(strings, buffer.getInt()), string(strings, buffer.getInt())));
+                buffer.position(next);
+            }
+            List<Comment> comments = new ArrayList<>(commentCount);
+            for (int i = 0; i < commentCount; i++) {
+                int next = buffer.getInt() + buffer.position();
+                byte nulls = buffer.get();
+                comments.add(new Comment(orNull(buffer.getLong(), nulls, 0), orNull(buffer.getLong(), nulls, 1),
+                        string(strings, buffer.getInt()), string(strings, buffer.getInt()), string(strings, buffer.getInt())));
+                buffer.position(next);
+            }
+            return new Contents(posts, comments, writtenAt);
+        } catch (RuntimeException e) {
+            // A valid checksum over an inconsistent payload means it was written by a broken writer
+            throw new IOException("Corrupt snapshot: " + e, e);
+        }
+    }
+
+    private static void writeRecord(OutputStream records, ByteArrayOutputStream record) throws IOException {
+        int length = record.size();
+        records.write(length >>> 24);
+        records.write(length >>> 16);
+        records.write(length >>> 8);
+        records.write(length);
+        record.writeTo(records);
+    }
+
+    private static int ref(String value, Map<String, Integer> dictionary, List<String> strings) {
+        if (value == null) {
+            return NULL_REF;
+        }
+        return dictionary.computeIfAbsent(value, k -> {
+            strings.add(k);
+            return strings.size() - 1;
+        });
+    }
+
+    private static String string(String[] strings, int ref) {
+        return ref == NULL_REF ? null : strings[ref];
+    }
+
+    private static int nullMask(Long first, Long second) {
+        return (first == null ? 1 : 0) | (second == null ? 2 : 0);
+    }
+
+    private static long orZero(Long value) {
+        return value == null ? 0 : value;
+    }
+
+    private static Long orNull(long value, byte nulls, int bit) {
+        return (nulls & (1 << bit)) != 0 ? null : value;
+    }
+}
@@ -0,0 +1,39 @@
+package com.fake.api.jsonplaceholder.service;
+
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+
+/**
+ * Single-flight de-duplication of upstream calls. While a call for a key is pending,
+ * later callers for the same key subscribe to that call instead of opening a new one.
+ * The entry is dropped as soon as the call terminates, so results (and failures) are
+ * only shared with callers that arrived while it was in flight.
+ */
+@Component
+public class RequestCoalescer {
+
+    private final ConcurrentMap<String, Mono<?>> inFlight = new ConcurrentHashMap<>();
+
+    @SuppressWarnings("unchecked")
+    public <T> Mono<T> join(String key, Supplier<Mono<T>> call) {
+        // The entry is dropped before the result is delivered, so a caller woken up by it starts a new call
+        return Mono.defer(() -> (Mono<T>) inFlight.computeIfAbsent(key, k -> {
+            AtomicReference<Mono<?>> shared = new AtomicReference<>();
+            // Only drop this call's own entry: a late cancel must not drop a newer call for the same key
+            shared.set(call.get()
+                    .doOnTerminate(() -> inFlight.remove(k, shared.get()))
+                    .doOnCancel(() -> inFlight.remove(k, shared.get()))
+                    .share());
+            return shared.get();
+        }));
+    }
+
+    public int inFlightCount() {
+        return inFlight.size();
+    }
+}
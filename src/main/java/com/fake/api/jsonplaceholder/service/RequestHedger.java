@@ -0,0 +1,146 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.HedgingProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Hedging of idempotent upstream calls. When a call has not answered after the configured
+ * percentile of recent latencies, an identical second call is sent and the first one to
+ * answer with a value wins; the other is cancelled. A failure only surfaces once both calls
+ * have failed, or when the original fails before a hedge was sent. Hedges are paid from a
+ * budget that grows by {@code hedging.budget} per call, so they never add more than that
+ * share of load. The delay follows the latencies of original calls that answered; a call
+ * cancelled because its hedge won is not counted.
+ */
+@Component
+public class RequestHedger implements MeterBinder {
+
+    private static final int WINDOW = 1024;
+    private static final int RECOMPUTE_EVERY = 64;
+    private static final long TOKEN = 1_000;
+    private static final long MAX_TOKENS = 10 * TOKEN;
+
+    private final HedgingProperties properties;
+
+    // Recent latencies in nanoseconds, overwritten in a ring
+    private final AtomicLongArray latencies = new AtomicLongArray(WINDOW);
+    private final AtomicInteger samples = new AtomicInteger();
+    private volatile long delayNanos;
+
+    // Thousandths of a hedge
+    private final AtomicLong tokens = new AtomicLong();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+
+    public RequestHedger(HedgingProperties properties) {
+        this.properties = properties;
+        this.delayNanos = properties.getMinDelay().toNanos();
+    }
+
+    public <T> Mono<T> hedge(Supplier<Mono<T>> call) {
+        if (!properties.isEnabled()) {
+            return call.get();
+        }
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            calls.increment();
+            deposit();
+
+            // Once the original call has ended there is nothing left to hedge
+            Sinks.One<Boolean> primaryDone = Sinks.one();
+            // Only the original call is timed: a hedge that wins is faster by construction, and
+            // counting it would pull the delay down until the budget is the only limit
+            Mono<T> primary = call.get()
+                    .doOnNext(value -> record(System.nanoTime() - start))
+                    .doOnTerminate(() -> primaryDone.tryEmitValue(true));
+
+            Mono<T> hedge = Mono.delay(Duration.ofNanos(delayNanos))
+                    .takeUntilOther(primaryDone.asMono())
+                    .flatMap(tick -> {
+                        if (!withdraw()) {
+                            return Mono.empty();
+                        }
+                        hedgesSent.increment();
+                        return call.get().doOnNext(value -> hedgesWon.increment());
+                    });
+
+            // The first value wins; an error only surfaces once neither call can answer
+            return Mono.firstWithValue(primary, hedge)
+                    .onErrorResume(NoSuchElementException.class, RequestHedger::firstError);
+        });
+    }
+
+    // Both calls failed or were empty, the error of the original call is reported
+    private static <T> Mono<T> firstError(NoSuchElementException e) {
+        if (e.getCause() == null) {
+            return Mono.empty();
+        }
+        return Mono.error(Exceptions.unwrapMultiple(e.getCause()).get(0));
+    }
+
+    public Duration currentDelay() {
+        return Duration.ofNanos(delayNanos);
+    }
+
+    private void deposit() {
+        long amount = (long) (properties.getBudget() * TOKEN);
+        tokens.getAndUpdate(current -> Math.min(MAX_TOKENS, current + amount));
+    }
+
+    private boolean withdraw() {
+        return tokens.getAndUpdate(current -> current >= TOKEN ? current - TOKEN : current) >= TOKEN;
+    }
+
+    private void record(long nanos) {
+        int sample = samples.getAndIncrement();
+        latencies.set(Math.floorMod(sample, WINDOW), nanos);
+        if (sample + 1 >= properties.getMinSamples() && (sample + 1) % RECOMPUTE_EVERY == 0) {
+            recomputeDelay(Math.min(sample + 1, WINDOW));
+        }
+    }
+
+    private void recomputeDelay(int count) {
+        long[] sorted = new long[count];
+        for (int i = 0; i < count; i++) {
+            sorted[i] = latencies.get(i);
+        }
+        Arrays.sort(sorted);
+        long percentile = sorted[(int) Math.min(count - 1, Math.ceil(properties.getPercentile() * count) - 1)];
+        delayNanos = Math.max(properties.getMinDelay().toNanos(), percentile);
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("upstream.hedge.calls", calls, LongAdder::sum)
+                .description("Upstream GETs eligible for hedging")
+                .register(registry);
+        FunctionCounter.builder("upstream.hedge.sent", hedgesSent, LongAdder::sum)
+                .description("Hedge requests sent")
+                .register(registry);
+        FunctionCounter.builder("upstream.hedge.won", hedgesWon, LongAdder::sum)
+                .description("Hedge requests that answered before the original")
+                .register(registry);
+        Gauge.builder("upstream.hedge.delay", this, hedger -> hedger.delayNanos / 1_000_000.0)
+                .baseUnit("milliseconds")
+                .description("Current delay before a hedge is sent")
+                .register(registry);
+    }
+}
@@ -0,0 +1,74 @@
+package com.fake.api.jsonplaceholder.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.metrics.http.Outcome;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Times every request sent to the upstream, from the start of the exchange until the status
+ * line arrives. The {@code upstream.requests} timer is tagged with the endpoint (method and
+ * path template, as for the circuit breakers), the status code and its outcome, and publishes
+ * a latency histogram. Requests that get no answer are counted as {@code upstream.errors}.
+ */
+@Component
+@Slf4j
+public class UpstreamMetrics implements ExchangeFilterFunction {
+
+    private final MeterRegistry registry;
+
+    public UpstreamMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        String endpoint = UpstreamResilience.endpoint(request.method().name(), request.url().getRawPath());
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return next.exchange(request)
+                    .doOnNext(response -> {
+                        int status = response.statusCode().value();
+                        long elapsed = record(endpoint, String.valueOf(status), Outcome.forStatus(status).name(), start);
+                        log.debug("{} {} answered {} in {} ms", request.method(), request.url(), status,
+                                TimeUnit.NANOSECONDS.toMillis(elapsed));
+                    })
+                    .doOnError(e -> {
+                        record(endpoint, "IO_ERROR", Outcome.UNKNOWN.name(), start);
+                        Counter.builder("upstream.errors")
+                                .description("Upstream requests that got no answer")
+                                .tag("endpoint", endpoint)
+                                .tag("error", e.getClass().getSimpleName())
+                                .register(registry)
+                                .increment();
+                    })
+                    // Hedge losers and calls over their deadline
+                    .doOnCancel(() -> record(endpoint, "CANCELLED", Outcome.UNKNOWN.name(), start));
+        });
+    }
+
+    private long record(String endpoint, String status, String outcome, long start) {
+        long elapsed = System.nanoTime() - start;
+        Timer.builder("upstream.requests")
+                .description("Latency of the requests sent to the upstream")
+                .tag("endpoint", endpoint)
+                .tag("status", status)
+                .tag("outcome", outcome)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofMillis(1))
+                .maximumExpectedValue(Duration.ofSeconds(10))
+                .register(registry)
+                .record(elapsed, TimeUnit.NANOSECONDS);
+        return elapsed;
+    }
+}
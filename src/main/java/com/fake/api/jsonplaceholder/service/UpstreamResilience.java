@@ -0,0 +1,118 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ResilienceProperties;
+import com.fake.api.jsonplaceholder.exception.TooManyRequestsException;
+import com.fake.api.jsonplaceholder.exception.UpstreamException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerConfig;
+import io.github.resilience4j.circuitbreaker.CircuitBreakerRegistry;
+import io.github.resilience4j.micrometer.tagged.TaggedCircuitBreakerMetrics;
+import io.github.resilience4j.reactor.circuitbreaker.operator.CircuitBreakerOperator;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.WebClientRequestException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.util.retry.Retry;
+
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+/**
+ * Protection around the upstream calls: one circuit breaker per endpoint (method and path
+ * template) over a sliding window of calls, a timeout per attempt and a deadline per call.
+ * Reads are also retried with jittered exponential backoff. While a circuit is open, calls
+ * fail at once with {@link CallNotPermittedException} instead of waiting on the upstream.
+ * Circuit states and call outcomes are published as the {@code resilience4j.circuitbreaker.*} metrics.
+ */
+@Component
+public class UpstreamResilience implements MeterBinder {
+
+    private final ResilienceProperties properties;
+    private final CircuitBreakerRegistry circuitBreakers;
+
+    public UpstreamResilience(ResilienceProperties properties) {
+        this.properties = properties;
+        ResilienceProperties.CircuitBreaker circuitBreaker = properties.getCircuitBreaker();
+        this.circuitBreakers = CircuitBreakerRegistry.of(CircuitBreakerConfig.custom()
+                .slidingWindowType(CircuitBreakerConfig.SlidingWindowType.COUNT_BASED)
+                .slidingWindowSize(circuitBreaker.getSlidingWindowSize())
+                .minimumNumberOfCalls(circuitBreaker.getMinimumNumberOfCalls())
+                .failureRateThreshold(circuitBreaker.getFailureRateThreshold())
+                .waitDurationInOpenState(circuitBreaker.getWaitDurationInOpenState())
+                .permittedNumberOfCallsInHalfOpenState(circuitBreaker.getPermittedNumberOfCallsInHalfOpenState())
+                .recordException(UpstreamResilience::isFailure)
+                // Rejected by the concurrency limit before reaching the upstream, neither success nor failure
+                .ignoreExceptions(TooManyRequestsException.class)
+                .build());
+    }
+
+    /**
+     * Idempotent call: guarded by the circuit breaker and retried on upstream failures.
+     */
+    public <T> Mono<T> read(String method, String uri, Supplier<Mono<T>> call) {
+        ResilienceProperties.Retry retry = properties.getRetry();
+        return guard(method, uri, call)
+                .retryWhen(Retry.backoff(retry.getMaxAttempts() - 1, retry.getBackoff())
+                        .maxBackoff(retry.getMaxBackoff())
+                        .jitter(retry.getJitter())
+                        .filter(UpstreamResilience::isFailure)
+                        .onRetryExhaustedThrow((spec, signal) -> signal.failure()))
+                .timeout(properties.getDeadline());
+    }
+
+    /**
+     * Non-idempotent call: guarded by the circuit breaker, never retried.
+     */
+    public <T> Mono<T> write(String method, String uri, Supplier<Mono<T>> call) {
+        return guard(method, uri, call).timeout(properties.getDeadline());
+    }
+
+    /**
+     * Streamed read: guarded by the circuit breaker, the attempt timeout bounds the wait for each element.
+     */
+    public <T> Flux<T> stream(String method, String uri, Supplier<Flux<T>> call) {
+        return Flux.defer(call)
+                .timeout(properties.getAttemptTimeout())
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker(method, uri)));
+    }
+
+    public CircuitBreaker circuitBreaker(String method, String uri) {
+        return circuitBreakers.circuitBreaker(endpoint(method, uri));
+    }
+
+    /**
+     * Failures that tell the upstream is unhealthy, as opposed to answers like 404.
+     */
+    public static boolean isFailure(Throwable error) {
+        return error instanceof UpstreamException
+                || error instanceof TimeoutException
+                || error instanceof WebClientRequestException;
+    }
+
+    /**
+     * Failures, and calls refused because the upstream was found unhealthy.
+     */
+    public static boolean isUnavailable(Throwable error) {
+        return isFailure(error) || error instanceof CallNotPermittedException;
+    }
+
+    private <T> Mono<T> guard(String method, String uri, Supplier<Mono<T>> call) {
+        return Mono.defer(call)
+                .timeout(properties.getAttemptTimeout())
+                .transformDeferred(CircuitBreakerOperator.of(circuitBreaker(method, uri)));
+    }
+
+    // GET /posts/1/comments?id=2 -> GET /posts/{id}/comments
+    static String endpoint(String method, String uri) {
+        String path = uri.replaceFirst("\\?.*$", "").replaceFirst("/$", "");
+        return method + " " + path.replaceFirst("^/posts/[^/]+", "/posts/{id}");
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        TaggedCircuitBreakerMetrics.ofCircuitBreakerRegistry(circuitBreakers).bindTo(registry);
+    }
+}
@@ -0,0 +1,131 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.RevalidationProperties;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.client.ClientRequest;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.ExchangeFilterFunction;
+import org.springframework.web.reactive.function.client.ExchangeFunction;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * Conditional GETs to the upstream. The body of each answer that has an ETag is kept per URI,
+ * copied while it streams through; the next GET for that URI sends {@code If-None-Match}, and
+ * a 304 is turned back into a 200 with the kept body, so an unchanged payload is not transferred
+ * again. Outcomes are counted as {@code upstream.revalidations}.
+ */
+@Component
+@Slf4j
+public class UpstreamRevalidation implements ExchangeFilterFunction, MeterBinder {
+
+    private record Validated(String etag, HttpHeaders headers, byte[] body) {}
+
+    private final RevalidationProperties properties;
+    private final Cache<String, Validated> bodies;
+
+    private volatile Counter notModified;
+    private volatile Counter modified;
+
+    public UpstreamRevalidation(RevalidationProperties properties) {
+        this.properties = properties;
+        this.bodies = Caffeine.newBuilder()
+                .maximumSize(properties.getMaximumSize())
+                .build();
+    }
+
+    @Override
+    public Mono<ClientResponse> filter(ClientRequest request, ExchangeFunction next) {
+        if (!properties.isEnabled() || request.method() != HttpMethod.GET) {
+            return next.exchange(request);
+        }
+        String uri = request.url().toString();
+
+        return Mono.defer(() -> {
+            Validated validated = bodies.getIfPresent(uri);
+            ClientRequest conditional = validated == null ? request : ClientRequest.from(request)
+                    .headers(headers -> headers.setIfNoneMatch(validated.etag()))
+                    .build();
+
+            return next.exchange(conditional).map(response -> {
+                if (validated != null && response.statusCode() == HttpStatus.NOT_MODIFIED) {
+                    increment(notModified);
+                    log.debug("{} not modified, reusing {} bytes", uri, validated.body().length);
+                    return response.mutate()
+                            .statusCode(HttpStatus.OK)
+                            .headers(headers -> validated.headers().forEach(headers::putIfAbsent))
+                            .body(Flux.defer(() -> Flux.just(DefaultDataBufferFactory.sharedInstance.wrap(validated.body()))))
+                            .build();
+                }
+                String etag = response.headers().asHttpHeaders().getETag();
+                if (!response.statusCode().is2xxSuccessful() || etag == null) {
+                    return response;
+                }
+                if (validated != null) {
+                    increment(modified);
+                }
+                return keep(uri, etag, response);
+            });
+        });
+    }
+
+    private ClientResponse keep(String uri, String etag, ClientResponse response) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.putAll(response.headers().asHttpHeaders());
+        long maxBodySize = properties.getMaxBodySize().toBytes();
+
+        return response.mutate().body(body -> {
+            ByteArrayOutputStream copy = new ByteArrayOutputStream();
+            return body
+                    .doOnNext(buffer -> {
+                        if (copy.size() <= maxBodySize) {
+                            copy.write(readable(buffer), 0, buffer.readableByteCount());
+                        }
+                    })
+                    .doOnComplete(() -> {
+                        if (copy.size() <= maxBodySize) {
+                            bodies.put(uri, new Validated(etag, headers, copy.toByteArray()));
+                        }
+                    });
+        }).build();
+    }
+
+    // Copies the readable bytes without moving the read position, the buffer still goes to the decoder
+    private static byte[] readable(DataBuffer buffer) {
+        ByteBuffer bytes = ByteBuffer.allocate(buffer.readableByteCount());
+        buffer.toByteBuffer(buffer.readPosition(), bytes, 0, bytes.capacity());
+        return bytes.array();
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null) {
+            counter.increment();
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        notModified = Counter.builder("upstream.revalidations")
+                .description("Conditional upstream GETs by outcome")
+                .tag("result", "not_modified")
+                .register(registry);
+        modified = Counter.builder("upstream.revalidations")
+                .description("Conditional upstream GETs by outcome")
+                .tag("result", "modified")
+                .register(registry);
+    }
+}
@@ -0,0 +1,226 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.WriteBehindProperties;
+import com.fake.api.jsonplaceholder.exception.NotFoundException;
+import com.fake.api.jsonplaceholder.exception.TooManyRequestsException;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fake.api.jsonplaceholder.model.WriteOperation;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.util.concurrent.Queues;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Write-behind for creations, updates and deletions. Accepted writes get an operation id and
+ * wait in a bounded queue; when it is full they are rejected with {@link TooManyRequestsException}.
+ * The queue is drained by {@code write-behind.concurrency} lanes. Writes to the same post always
+ * go to the same lane, so they reach the upstream in the order they were accepted. An update
+ * accepted while another update of the same post is still queued replaces its body; both
+ * operations then finish with the result of the single upstream call.
+ * <p>
+ * On shutdown no new writes are accepted and the queued ones are still sent, for at most
+ * {@code write-behind.shutdown-timeout}; the writes left after that are marked failed.
+ */
+@Component
+@Slf4j
+public class WriteBehindQueue implements MeterBinder {
+
+    private static class Task {
+        private final WriteOperation.Type type;
+        private final String postId;
+        private Post body;
+        private final List<String> operationIds = new ArrayList<>();
+
+        private Task(WriteOperation.Type type, String postId, Post body) {
+            this.type = type;
+            this.postId = postId;
+            this.body = body;
+        }
+
+        // Creations have no post yet, each one gets its own lane key
+        private int lane(int lanes) {
+            return Math.floorMod(postId != null ? postId.hashCode() : operationIds.get(0).hashCode(), lanes);
+        }
+    }
+
+    private final WriteBehindProperties properties;
+    private final PostsService postsService;
+    private final Cache<String, WriteOperation> operations;
+
+    private final Sinks.Many<Task> tasks = Sinks.many().unicast().onBackpressureBuffer(Queues.<Task>unbounded().get());
+    private final Map<String, Task> queuedUpdates = new HashMap<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final CountDownLatch drained = new CountDownLatch(1);
+    private Disposable workers;
+    // Guarded by this
+    private boolean stopped;
+
+    @Autowired
+    public WriteBehindQueue(WriteBehindProperties properties, PostsService postsService) {
+        this.properties = properties;
+        this.postsService = postsService;
+        this.operations = Caffeine.newBuilder()
+                .expireAfterWrite(properties.getOperationTtl())
+                .maximumSize(properties.getMaximumOperations())
+                .build();
+    }
+
+    @PostConstruct
+    public void start() {
+        int lanes = properties.getConcurrency();
+        workers = tasks.asFlux()
+                .groupBy(task -> task.lane(lanes))
+                .flatMap(lane -> lane.concatMap(this::execute), lanes)
+                .doFinally(signal -> drained.countDown())
+                .subscribe();
+    }
+
+    @PreDestroy
+    public void stop() {
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            // The lanes finish the queued writes, then the workers complete
+            tasks.tryEmitComplete();
+        }
+        if (workers == null) {
+            return;
+        }
+        try {
+            if (!drained.await(properties.getShutdownTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Write queue not drained within {}, {} writes left", properties.getShutdownTimeout(), queued.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        workers.dispose();
+
+        // Writes already acknowledged that will never reach the upstream
+        operations.asMap().values().stream()
+                .filter(operation -> operation.getStatus() == WriteOperation.Status.QUEUED
+                        || operation.getStatus() == WriteOperation.Status.RUNNING)
+                .forEach(operation -> update(operation.getId(), WriteOperation.Status.FAILED, null,
+                        "Write not completed, the service stopped"));
+    }
+
+    public WriteOperation submit(WriteOperation.Type type, String postId, Post body) {
+        WriteOperation operation = new WriteOperation(UUID.randomUUID().toString(), type, postId,
+                WriteOperation.Status.QUEUED, null, null);
+
+        synchronized (this) {
+            if (stopped) {
+                throw new TooManyRequestsException("Write queue is stopped");
+            }
+            if (type != WriteOperation.Type.UPDATE && postId != null) {
+                // A later update must not jump ahead of this write
+                queuedUpdates.remove(postId);
+            }
+            Task queuedUpdate = type == WriteOperation.Type.UPDATE ? queuedUpdates.get(postId) : null;
+            if (queuedUpdate != null) {
+                // The newer body replaces the queued one, a PUT sends the whole post
+                queuedUpdate.body = body;
+                queuedUpdate.operationIds.add(operation.getId());
+                operations.put(operation.getId(), operation);
+                coalesced.increment();
+                return operation;
+            }
+
+            if (queued.get() >= properties.getQueueSize()) {
+                rejected.increment();
+                throw new TooManyRequestsException("Write queue is full");
+            }
+
+            Task task = new Task(type, postId, body);
+            task.operationIds.add(operation.getId());
+            if (type == WriteOperation.Type.UPDATE) {
+                queuedUpdates.put(postId, task);
+            }
+            operations.put(operation.getId(), operation);
+            queued.incrementAndGet();
+            // Serialized by the lock, so the emission cannot fail
+            tasks.tryEmitNext(task);
+        }
+        return operation;
+    }
+
+    public WriteOperation getOperation(String id) {
+        WriteOperation operation = operations.getIfPresent(id);
+        if (operation == null) {
+            throw new NotFoundException("Operation not found");
+        }
+        return operation;
+    }
+
+    public int queuedCount() {
+        return queued.get();
+    }
+
+    private Mono<Void> execute(Task task) {
+        List<String> operationIds;
+        synchronized (this) {
+            // From now on a new update of the post needs a call of its own
+            queuedUpdates.remove(task.postId, task);
+            queued.decrementAndGet();
+            operationIds = List.copyOf(task.operationIds);
+        }
+        operationIds.forEach(id -> update(id, WriteOperation.Status.RUNNING, null, null));
+
+        Mono<Post> write = switch (task.type) {
+            case CREATE -> postsService.createPost(task.body).mapNotNull(response -> response.getBody());
+            case UPDATE -> postsService.updatePost(task.postId, task.body).mapNotNull(response -> response.getBody());
+            case DELETE -> postsService.deletePost(task.postId).then(Mono.empty());
+        };
+
+        return write
+                .doOnSuccess(post -> operationIds.forEach(id -> update(id, WriteOperation.Status.SUCCEEDED, post, null)))
+                .doOnError(e -> {
+                    log.warn("Write {} of post {} failed: {}", task.type, task.postId, e.getMessage());
+                    operationIds.forEach(id -> update(id, WriteOperation.Status.FAILED, null, e.getMessage()));
+                })
+                .onErrorResume(e -> Mono.empty())
+                .then();
+    }
+
+    private void update(String id, WriteOperation.Status status, Post post, String error) {
+        operations.asMap().computeIfPresent(id, (key, operation) -> new WriteOperation(
+                operation.getId(), operation.getType(), operation.getPostId(), status, post, error));
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("write.behind.queued", this, WriteBehindQueue::queuedCount)
+                .description("Accepted writes not yet sent to the upstream")
+                .register(registry);
+        FunctionCounter.builder("write.behind.coalesced", coalesced, LongAdder::sum)
+                .description("Updates merged into an update of the same post that was still queued")
+                .register(registry);
+        FunctionCounter.builder("write.behind.rejected", rejected, LongAdder::sum)
+                .description("Writes rejected because the queue was full")
+                .register(registry);
+    }
+}
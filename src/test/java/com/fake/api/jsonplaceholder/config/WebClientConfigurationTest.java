@@ -0,0 +1,94 @@
+package com.fake.api.jsonplaceholder.config;
+
+import com.fake.api.jsonplaceholder.service.UpstreamMetrics;
+import com.fake.api.jsonplaceholder.service.UpstreamRevalidation;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.handler.timeout.ReadTimeoutException;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.resources.ConnectionProvider;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class WebClientConfigurationTest {
+
+    private MockWebServer mockWebServer;
+
+    private UpstreamClientProperties properties = new UpstreamClientProperties();
+
+    private ConnectionProvider connectionProvider;
+
+    private WebClient webClient;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+
+        // One pooled connection, so the second call reuses the first one's
+        properties.setMaxConnections(1);
+        properties.setReadTimeout(Duration.ofMillis(200));
+        WebClientConfiguration configuration = new WebClientConfiguration();
+        ReflectionTestUtils.setField(configuration, "BASE_URL", mockWebServer.url("/").toString());
+        connectionProvider = configuration.upstreamConnectionProvider(properties);
+        webClient = configuration.webClient(WebClient.builder(), connectionProvider, properties,
+                new UpstreamMetrics(new SimpleMeterRegistry()), new UpstreamRevalidation(new RevalidationProperties()));
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        connectionProvider.dispose();
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    public void testReadTimeoutAppliesToPooledConnections() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("first"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("stalled")
+                .setBodyDelay(2, TimeUnit.SECONDS));
+
+        assertEquals("first", webClient.get().uri("/posts").retrieve().bodyToMono(String.class).block());
+        Exception exception = assertThrows(Exception.class,
+                () -> webClient.get().uri("/posts").retrieve().bodyToMono(String.class).block());
+
+        // Assertions: the stalled body times out on the connection taken back from the pool
+        assertTrue(hasCause(exception, ReadTimeoutException.class), exception.toString());
+        assertEquals(0, mockWebServer.takeRequest().getSequenceNumber());
+        assertEquals(1, mockWebServer.takeRequest().getSequenceNumber());
+    }
+
+    @Test
+    public void testIdlePooledConnectionOutlivesReadTimeout() throws Exception {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("first"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("second"));
+
+        // Idle in the pool for longer than the read timeout
+        assertEquals("first", webClient.get().uri("/posts").retrieve().bodyToMono(String.class).block());
+        Thread.sleep(properties.getReadTimeout().toMillis() * 3);
+        assertEquals("second", webClient.get().uri("/posts").retrieve().bodyToMono(String.class).block());
+
+        // Assertions: the second call reused the connection
+        assertEquals(0, mockWebServer.takeRequest().getSequenceNumber());
+        assertEquals(1, mockWebServer.takeRequest().getSequenceNumber());
+    }
+
+    private static boolean hasCause(Throwable error, Class<? extends Throwable> type) {
+        for (Throwable cause = error; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,36 @@
+package com.fake.api.jsonplaceholder.controller;
+
+import com.fake.api.jsonplaceholder.config.ErrorLogProperties;
+import com.fake.api.jsonplaceholder.service.ErrorLogLimiter;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.request.async.AsyncRequestNotUsableException;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+
+public class ErrorHandlerTest {
+
+    private ErrorLogLimiter errorLogLimiter = spy(new ErrorLogLimiter(new ErrorLogProperties()));
+
+    private ErrorHandler errorHandler = new ErrorHandler();
+
+    @Test
+    public void testClientDisconnectIsNotAnswered() {
+        ReflectionTestUtils.setField(errorHandler, "errorLogLimiter", errorLogLimiter);
+
+        // Assertions: nothing is written and the log budget is left for real errors
+        assertNull(errorHandler.unexpectedException(new IOException("Broken pipe")));
+        assertNull(errorHandler.unexpectedException(new AsyncRequestNotUsableException("ServletOutputStream failed to flush")));
+        verify(errorLogLimiter, never()).acquire();
+
+        assertEquals(HttpStatus.INTERNAL_SERVER_ERROR, errorHandler.unexpectedException(new IOException("Disk full")).getStatusCode());
+        verify(errorLogLimiter).acquire();
+    }
+}
@@ -0,0 +1,480 @@
+package com.fake.api.jsonplaceholder.controller;
+
+import com.fake.api.jsonplaceholder.model.ChangeFeed;
+import com.fake.api.jsonplaceholder.model.Comment;
+import com.fake.api.jsonplaceholder.model.ExportJob;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fake.api.jsonplaceholder.model.PostChange;
+import com.fake.api.jsonplaceholder.service.ChangeLog;
+import com.fake.api.jsonplaceholder.model.WriteOperation;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.boot.web.embedded.netty.NettyWebServer;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.boot.web.reactive.context.ReactiveWebServerApplicationContext;
+import org.springframework.boot.web.reactive.server.ReactiveWebServerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ZeroCopyHttpOutputMessage;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.http.server.reactive.ServerHttpResponseDecorator;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.server.WebFilter;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("reactive")
+@AutoConfigureObservability(tracing = false)
+public class PostsControllerReactiveTest {
+
+    private static final MockWebServer mockWebServer = new MockWebServer();
+
+    // Files the server sent with zero-copy transfer
+    private static final List<Path> zeroCopyFiles = new CopyOnWriteArrayList<>();
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Autowired
+    private ChangeLog changeLog;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) throws IOException {
+        mockWebServer.start();
+        registry.add("base.url", () -> mockWebServer.url("/").toString());
+        // Export jobs write their files out of the working tree
+        Path exports = Files.createTempDirectory("exports");
+        registry.add("export.directory", exports::toString);
+        // Change streams end on their own, so tests read them to the end
+        registry.add("change-log.max-stream", () -> "2s");
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    public void testRunsOnReactiveStack() {
+        assertTrue(context instanceof ReactiveWebApplicationContext);
+        // Tomcat is on the classpath too, the server must still be Reactor Netty
+        assertTrue(context.getBean(ReactiveWebServerFactory.class) instanceof NettyReactiveWebServerFactory);
+        assertTrue(((ReactiveWebServerApplicationContext) context).getWebServer() instanceof NettyWebServer);
+    }
+
+    @Test
+    public void testGetPost() throws Exception {
+        // Enqueue a mock response
+        Post mockPost = new Post(1L, 1L, "Title", "Body");
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(mockPost))
+                .addHeader("Content-Type", "application/json"));
+
+        // Call the endpoint and check the response
+        webTestClient.get().uri("/posts/1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.title").isEqualTo("Title");
+    }
+
+    @Test
+    public void testGetPost_NotFound() {
+        // Enqueue a mock response 404 Not Found
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404));
+
+        // Call the endpoint and check the error is mapped by ErrorHandler
+        webTestClient.get().uri("/posts/999")
+                .exchange()
+                .expectStatus().isNotFound()
+                .expectBody()
+                .jsonPath("$.msg").isEqualTo("Post not found");
+    }
+
+    @Test
+    public void testGetPost_ServerError() {
+        // Enqueue a mock response 500 Internal Server Error for every attempt
+        for (int i = 0; i < 3; i++) {
+            mockWebServer.enqueue(new MockResponse().setResponseCode(500));
+        }
+
+        // Call the endpoint and check the error is mapped by ErrorHandler
+        webTestClient.get().uri("/posts/2")
+                .exchange()
+                .expectStatus().isEqualTo(HttpStatus.BAD_GATEWAY)
+                .expectBody()
+                .jsonPath("$.msg").isEqualTo("Error del servicio remoto: Server error");
+    }
+
+    @Test
+    public void testStreamPosts() throws Exception {
+        // Enqueue a mock response
+        Post mockPost1 = new Post(1L, 1L, "Title 1", "Body 1");
+        Post mockPost2 = new Post(2L, 1L, "Title 2", "Body 2");
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Post[]{mockPost1, mockPost2}))
+                .addHeader("Content-Type", "application/json"));
+
+        // Call the endpoint asking for newline-delimited JSON
+        List<Post> posts = webTestClient.get().uri("/posts?userId=1")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .returnResult(Post.class)
+                .getResponseBody()
+                .collectList()
+                .block();
+
+        assertEquals(List.of(mockPost1, mockPost2), posts);
+    }
+
+    @Test
+    public void testStreamPosts_Fields() throws Exception {
+        // Enqueue a mock response
+        Post mockPost = new Post(5L, 2L, "Title", "Body");
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Post[]{mockPost}))
+                .addHeader("Content-Type", "application/json"));
+
+        // Call the endpoint asking only for ids and titles
+        webTestClient.get().uri("/posts?userId=2&fields=id,title")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .isEqualTo("{\"id\":5,\"title\":\"Title\"}\n");
+    }
+
+    @Test
+    public void testGetComments_Fields() throws Exception {
+        // Enqueue a mock response
+        Comment mockComment = new Comment(6L, 1L, "Name", "Email", "Body");
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Comment[]{mockComment}))
+                .addHeader("Content-Type", "application/json"));
+
+        // Call the endpoint asking only for ids and names
+        webTestClient.get().uri("/posts/6/comments?fields=id,name")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .isEqualTo("[{\"id\":1,\"name\":\"Name\"}]");
+    }
+
+    @Test
+    public void testGetPost_UnknownField() {
+        // No upstream call is made for an invalid projection
+        webTestClient.get().uri("/posts/1?fields=id,author")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void testGetChanges() throws Exception {
+        long since = changeLog.lastSeq();
+        Post mockPost = new Post(7L, 1L, "Title", "Body");
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(mockPost))
+                .addHeader("Content-Type", "application/json"));
+
+        // Update a post, then ask for what changed
+        webTestClient.put().uri("/posts/7")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(mockPost)
+                .exchange()
+                .expectStatus().isOk();
+
+        webTestClient.get().uri("/posts/changes?since=" + since)
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.changes[0].type").isEqualTo("UPDATED")
+                .jsonPath("$.changes[0].postId").isEqualTo(7)
+                .jsonPath("$.changes[0].post.title").isEqualTo("Title")
+                .jsonPath("$.lastSeq").isEqualTo(since + 1)
+                .jsonPath("$.reset").isEqualTo(false);
+    }
+
+    @Test
+    public void testStreamChanges() {
+        long since = changeLog.lastSeq();
+        changeLog.append(PostChange.Type.DELETED, PostChange.Source.UPSTREAM, 8L, null);
+
+        // Follow the changes as server-sent events until the server ends the stream
+        List<ServerSentEvent<PostChange>> events = webTestClient.get().uri("/posts/changes?since=" + since)
+                .accept(MediaType.TEXT_EVENT_STREAM)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .returnResult(new ParameterizedTypeReference<ServerSentEvent<PostChange>>() {})
+                .getResponseBody()
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        // Assertions
+        assertEquals(1, events.size());
+        ServerSentEvent<PostChange> event = events.get(0);
+        assertEquals("change", event.event());
+        assertEquals(String.valueOf(since + 1), event.id());
+        assertEquals(8L, event.data().getPostId());
+    }
+
+    @Test
+    public void testGetChanges_AheadOfLog() {
+        // A sequence number the log never reached, as after a restart
+        ChangeFeed feed = webTestClient.get().uri("/posts/changes?since=" + (changeLog.lastSeq() + 100))
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(ChangeFeed.class)
+                .returnResult()
+                .getResponseBody();
+
+        assertTrue(feed.isReset());
+    }
+
+    @Test
+    public void testStreamComments_ByFlag() throws Exception {
+        // Enqueue a mock response
+        Comment mockComment = new Comment(1L, 1L, "Name", "Email", "Body");
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Comment[]{mockComment}))
+                .addHeader("Content-Type", "application/json"));
+
+        // Call the endpoint with the stream flag
+        webTestClient.get().uri("/posts/3/comments?stream=true")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(Comment.class)
+                .isEqualTo(List.of(mockComment));
+    }
+
+    @Test
+    public void testUpdatePost_Async() throws Exception {
+        // Enqueue a mock response for the write sent in the background
+        Post mockPost = new Post(4L, 1L, "Title", "Body");
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(mockPost))
+                .addHeader("Content-Type", "application/json"));
+
+        // The request is accepted before the write reaches the API
+        WriteOperation operation = webTestClient.put().uri("/posts/4?async=true")
+                .bodyValue(mockPost)
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectHeader().exists("Location")
+                .expectBody(WriteOperation.class)
+                .returnResult()
+                .getResponseBody();
+
+        // Poll the operation until the write is done
+        WriteOperation polled = operation;
+        for (int i = 0; i < 100 && polled.getStatus() != WriteOperation.Status.SUCCEEDED; i++) {
+            Thread.sleep(20);
+            polled = webTestClient.get().uri("/operations/" + operation.getId())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(WriteOperation.class)
+                    .returnResult()
+                    .getResponseBody();
+        }
+        assertEquals(WriteOperation.Status.SUCCEEDED, polled.getStatus());
+        assertEquals(mockPost, polled.getPost());
+    }
+
+    @Test
+    public void testGetPostsWithComments_ProjectedAndNotModified() throws Exception {
+        // Enqueue the posts and their bulk comments, the second request must not reach the API
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Post[]{new Post(70L, 7L, "Title", "Body")}))
+                .addHeader("Content-Type", "application/json"));
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Comment[]{new Comment(70L, 1L, "Name", "Email", "Body")}))
+                .addHeader("Content-Type", "application/json"));
+        int requestCount = mockWebServer.getRequestCount();
+
+        // Only the post is projected, its comments are returned whole
+        String etag = webTestClient.get().uri("/posts?userId=7&embed=comments&fields=id,title")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists("ETag")
+                .expectBody()
+                .json("[{\"id\":70,\"title\":\"Title\",\"comments\":[{\"postId\":70,\"id\":1,\"name\":\"Name\",\"email\":\"Email\",\"body\":\"Body\"}]}]", true)
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+
+        webTestClient.get().uri("/posts?userId=7&embed=comments&fields=id,title")
+                .header("If-None-Match", etag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        assertEquals(requestCount + 2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void testGetPost_NotModified() throws Exception {
+        // Enqueue a single mock response, the second request must not reach the API
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Post(6L, 1L, "Title", "Body")))
+                .addHeader("Content-Type", "application/json"));
+        int requestCount = mockWebServer.getRequestCount();
+
+        String etag = webTestClient.get().uri("/posts/6")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists("ETag")
+                .expectBody()
+                .jsonPath("$.id").isEqualTo(6)
+                .returnResult()
+                .getResponseHeaders()
+                .getETag();
+
+        // Call the endpoint again with the validator
+        webTestClient.get().uri("/posts/6")
+                .header("If-None-Match", etag)
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals("ETag", etag);
+
+        assertEquals(requestCount + 1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void testExport() throws Exception {
+        // Enqueue a mock response shorter than a page, the only one the export asks for
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Post[]{new Post(90L, 9L, "Title, 90", "Body")}))
+                .addHeader("Content-Type", "application/json"));
+
+        // Start the export and poll it until it is done
+        ExportJob accepted = webTestClient.post().uri("/exports")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"userId\":9,\"formats\":[\"CSV\"],\"fields\":\"id,title\"}")
+                .exchange()
+                .expectStatus().isAccepted()
+                .expectHeader().exists("Location")
+                .expectBody(ExportJob.class)
+                .returnResult()
+                .getResponseBody();
+        ExportJob job = accepted;
+        for (int i = 0; i < 100 && job.getStatus() != ExportJob.Status.SUCCEEDED; i++) {
+            Thread.sleep(50);
+            job = webTestClient.get().uri("/exports/" + accepted.getId())
+                    .exchange()
+                    .expectStatus().isOk()
+                    .expectBody(ExportJob.class)
+                    .returnResult()
+                    .getResponseBody();
+        }
+        assertEquals(ExportJob.Status.SUCCEEDED, job.getStatus());
+        assertEquals(1, job.getRecordsWritten());
+
+        // Download the file
+        webTestClient.get().uri("/exports/" + accepted.getId() + "/file")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.parseMediaType("text/csv"))
+                .expectHeader().valueEquals("Content-Disposition", "attachment; filename=\"posts.csv\"")
+                .expectBody(String.class)
+                .isEqualTo("id,title\r\n90,\"Title, 90\"\r\n");
+        assertEquals(List.of("posts.csv"), zeroCopyFiles.stream().map(file -> file.getFileName().toString()).toList());
+        webTestClient.get().uri("/exports/" + accepted.getId() + "/file?format=JSON")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+
+    @Test
+    public void testPrometheusEndpoint() throws Exception {
+        // Enqueue a mock response
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Post(5L, 1L, "Title", "Body")))
+                .addHeader("Content-Type", "application/json"));
+        webTestClient.get().uri("/posts/5").exchange().expectStatus().isOk();
+
+        // The upstream latency histogram is scraped by endpoint; the scrape grows with every endpoint called before
+        String scrape = webTestClient.mutate()
+                .codecs(codecs -> codecs.defaultCodecs().maxInMemorySize(-1))
+                .build()
+                .get().uri("/actuator/prometheus")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody(String.class)
+                .returnResult()
+                .getResponseBody();
+        assertTrue(scrape.contains("upstream_requests_seconds_bucket"));
+        assertTrue(scrape.contains("endpoint=\"GET /posts/{id}\""));
+        assertTrue(scrape.contains("http_server_requests_seconds_bucket"));
+    }
+
+    /**
+     * Records the files written through {@link ZeroCopyHttpOutputMessage} on export downloads, then
+     * hands them to the server response, which fails the download if it cannot transfer a file.
+     */
+    @TestConfiguration
+    static class ZeroCopyRecorder {
+
+        @Bean
+        public WebFilter zeroCopyRecorder() {
+            return (exchange, chain) -> exchange.getRequest().getPath().value().startsWith("/exports/")
+                    ? chain.filter(exchange.mutate().response(new ZeroCopyRecordingResponse(exchange.getResponse())).build())
+                    : chain.filter(exchange);
+        }
+    }
+
+    static class ZeroCopyRecordingResponse extends ServerHttpResponseDecorator implements ZeroCopyHttpOutputMessage {
+
+        ZeroCopyRecordingResponse(ServerHttpResponse delegate) {
+            super(delegate);
+        }
+
+        @Override
+        public Mono<Void> writeWith(Path file, long position, long count) {
+            zeroCopyFiles.add(file);
+            return ((ZeroCopyHttpOutputMessage) getDelegate()).writeWith(file, position, count);
+        }
+    }
+}
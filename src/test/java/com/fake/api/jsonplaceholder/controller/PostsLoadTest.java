@@ -0,0 +1,197 @@
+package com.fake.api.jsonplaceholder.controller;
+
+import lombok.extern.slf4j.Slf4j;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.convert.DurationStyle;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Closed-loop load test of the controller endpoints against {@link UpstreamStubDispatcher}.
+ * Each of {@code load.concurrency} workers sends requests back to back, round-robin over
+ * {@code load.endpoints}, for {@code load.warmup} (not recorded) and then {@code load.duration}.
+ * Throughput and latency percentiles per endpoint are logged and written to {@code target/load-report.txt}.
+ * <p>
+ * Excluded from the default build, run it with {@code mvn -Pload test}. Settings are system properties,
+ * e.g. {@code -Dload.concurrency=64 -Dload.latency=50ms -Dload.error-rate=0.01}.
+ * The test fails if any endpoint's p99 is above {@code load.max-p99}, 1s in the load profile so
+ * a CI run of {@code mvn -Pload test} is gated; an empty value only reports.
+ */
+@Tag("load")
+@Slf4j
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+public class PostsLoadTest {
+
+    private static final int CONCURRENCY = Integer.getInteger("load.concurrency", 16);
+    private static final Duration WARMUP = duration("load.warmup", "2s");
+    private static final Duration DURATION = duration("load.duration", "10s");
+    private static final Duration LATENCY = duration("load.latency", "20ms");
+    private static final Duration JITTER = duration("load.jitter", "10ms");
+    private static final double ERROR_RATE = Double.parseDouble(System.getProperty("load.error-rate", "0"));
+    private static final List<String> ENDPOINTS = List.of(System.getProperty("load.endpoints",
+            "/posts/1,/posts?userId=1,/posts/1/comments,/posts?embed=comments&userId=2").split(","));
+    private static final String MAX_P99 = System.getProperty("load.max-p99");
+
+    private static final MockWebServer mockWebServer = new MockWebServer();
+
+    @LocalServerPort
+    private int port;
+
+    @DynamicPropertySource
+    static void upstreamProperties(DynamicPropertyRegistry registry) throws IOException {
+        mockWebServer.setDispatcher(new UpstreamStubDispatcher(LATENCY, JITTER, ERROR_RATE));
+        mockWebServer.start();
+        registry.add("base.url", () -> mockWebServer.url("/").toString());
+        // Measure the upstream path unless asked otherwise
+        registry.add("cache.enabled", () -> System.getProperty("load.cache-enabled", "false"));
+        registry.add("response-cache.enabled", () -> System.getProperty("load.cache-enabled", "false"));
+        registry.add("logging.level.root", () -> "WARN");
+        registry.add("logging.level." + PostsLoadTest.class.getName(), () -> "INFO");
+    }
+
+    @AfterAll
+    static void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    public void testLoad() throws Exception {
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(CONCURRENCY);
+        ExecutorService workers = Executors.newFixedThreadPool(CONCURRENCY);
+        List<Sample> samples = new ArrayList<>();
+        try {
+            HttpClient client = HttpClient.newBuilder()
+                    .executor(clientExecutor)
+                    .build();
+            long start = System.nanoTime();
+            long measureFrom = start + WARMUP.toNanos();
+            long end = measureFrom + DURATION.toNanos();
+
+            List<Future<List<Sample>>> futures = new ArrayList<>();
+            for (int worker = 0; worker < CONCURRENCY; worker++) {
+                int offset = worker;
+                futures.add(workers.submit(() -> run(client, offset, measureFrom, end)));
+            }
+            for (Future<List<Sample>> future : futures) {
+                samples.addAll(future.get());
+            }
+        } finally {
+            workers.shutdownNow();
+            clientExecutor.shutdownNow();
+        }
+
+        String report = report(samples);
+        log.info("\n{}", report);
+        Files.createDirectories(Path.of("target"));
+        Files.writeString(Path.of("target", "load-report.txt"), report);
+
+        assertTrue(samples.stream().anyMatch(sample -> sample.status() == 200), "No request succeeded");
+        if (MAX_P99 != null && !MAX_P99.isBlank()) {
+            long maxP99 = DurationStyle.detectAndParse(MAX_P99).toNanos();
+            for (Map.Entry<String, List<Sample>> endpoint : byEndpoint(samples).entrySet()) {
+                long p99 = percentile(latencies(endpoint.getValue()), 0.99);
+                assertTrue(p99 <= maxP99, endpoint.getKey() + " p99 " + millis(p99) + " ms over " + MAX_P99);
+            }
+        }
+    }
+
+    private List<Sample> run(HttpClient client, int offset, long measureFrom, long end) {
+        List<Sample> samples = new ArrayList<>();
+        for (int i = offset; System.nanoTime() < end; i++) {
+            String endpoint = ENDPOINTS.get(i % ENDPOINTS.size());
+            HttpRequest request = HttpRequest.newBuilder(URI.create("http://localhost:" + port + endpoint))
+                    .timeout(Duration.ofSeconds(30))
+                    .build();
+            long sent = System.nanoTime();
+            int status;
+            try {
+                status = client.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+            } catch (IOException e) {
+                status = -1;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (sent >= measureFrom) {
+                samples.add(new Sample(endpoint, status, System.nanoTime() - sent));
+            }
+        }
+        return samples;
+    }
+
+    private static String report(List<Sample> samples) {
+        double seconds = DURATION.toNanos() / 1e9;
+        StringBuilder report = new StringBuilder(String.format(
+                "Load test: concurrency=%d duration=%s upstream latency=%s jitter=%s error-rate=%.3f%n",
+                CONCURRENCY, DURATION, LATENCY, JITTER, ERROR_RATE));
+        report.append(String.format("%-45s %8s %9s %7s %8s %8s %8s %8s %8s%n",
+                "endpoint", "requests", "req/s", "errors", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms"));
+        Map<String, List<Sample>> byEndpoint = byEndpoint(samples);
+        byEndpoint.put("total", samples);
+        byEndpoint.forEach((endpoint, list) -> {
+            long[] latencies = latencies(list);
+            long errors = list.stream().filter(sample -> sample.status() != 200).count();
+            report.append(String.format("%-45s %8d %9.1f %7d %8.1f %8.1f %8.1f %8.1f %8.1f%n",
+                    endpoint, list.size(), list.size() / seconds, errors,
+                    millis(percentile(latencies, 0.5)), millis(percentile(latencies, 0.9)),
+                    millis(percentile(latencies, 0.99)), millis(percentile(latencies, 0.999)),
+                    millis(percentile(latencies, 1.0))));
+        });
+        return report.toString();
+    }
+
+    private static Map<String, List<Sample>> byEndpoint(List<Sample> samples) {
+        Map<String, List<Sample>> byEndpoint = new TreeMap<>();
+        samples.forEach(sample -> byEndpoint.computeIfAbsent(sample.endpoint(), k -> new ArrayList<>()).add(sample));
+        return byEndpoint;
+    }
+
+    private static long[] latencies(List<Sample> samples) {
+        long[] latencies = samples.stream().mapToLong(Sample::nanos).toArray();
+        Arrays.sort(latencies);
+        return latencies;
+    }
+
+    // Nearest-rank percentile of sorted latencies
+    private static long percentile(long[] sorted, double quantile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(quantile * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1e6;
+    }
+
+    private static Duration duration(String property, String defaultValue) {
+        return DurationStyle.detectAndParse(System.getProperty(property, defaultValue));
+    }
+
+    private record Sample(String endpoint, int status, long nanos) {}
+}
@@ -0,0 +1,96 @@
+package com.fake.api.jsonplaceholder.controller;
+
+import com.fake.api.jsonplaceholder.model.Comment;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Local stand-in for jsonplaceholder: 100 posts with 5 comments each, filtered by the
+ * {@code userId}, {@code title} and {@code postId} query parameters like the real API. Answers
+ * come after {@code latency} plus a uniform random {@code jitter}, with a 500 for
+ * {@code errorRate} of the requests.
+ */
+public class UpstreamStubDispatcher extends Dispatcher {
+
+    private final Duration latency;
+    private final Duration jitter;
+    private final double errorRate;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final List<Post> posts = new ArrayList<>();
+    private final List<Comment> comments = new ArrayList<>();
+
+    public UpstreamStubDispatcher(Duration latency, Duration jitter, double errorRate) {
+        this.latency = latency;
+        this.jitter = jitter;
+        this.errorRate = errorRate;
+        for (long id = 1; id <= 100; id++) {
+            posts.add(new Post(id, (id - 1) / 10 + 1, "title " + id, "body " + id));
+            for (long c = 1; c <= 5; c++) {
+                comments.add(new Comment(id, (id - 1) * 5 + c, "name " + c, "user" + c + "@example.com", "comment " + c));
+            }
+        }
+    }
+
+    @Override
+    public MockResponse dispatch(RecordedRequest request) {
+        MockResponse response = answer(request);
+        long delay = latency.toMillis() + (jitter.isZero() ? 0 : ThreadLocalRandom.current().nextLong(jitter.toMillis() + 1));
+        return response.setHeadersDelay(delay, TimeUnit.MILLISECONDS);
+    }
+
+    private MockResponse answer(RecordedRequest request) {
+        if (ThreadLocalRandom.current().nextDouble() < errorRate) {
+            return new MockResponse().setResponseCode(500);
+        }
+        String path = request.getRequestUrl().encodedPath();
+        String[] segments = path.substring(1).split("/");
+        try {
+            if (segments.length == 1 && segments[0].equals("posts")) {
+                List<String> userIds = request.getRequestUrl().queryParameterValues("userId");
+                List<String> titles = request.getRequestUrl().queryParameterValues("title");
+                return json(posts.stream()
+                        .filter(post -> userIds.isEmpty() || userIds.contains(String.valueOf(post.getUserId())))
+                        .filter(post -> titles.isEmpty() || titles.contains(post.getTitle()))
+                        .toList());
+            }
+            if (segments.length == 2 && segments[0].equals("posts")) {
+                int id = Integer.parseInt(segments[1]);
+                return id >= 1 && id <= posts.size() ? json(posts.get(id - 1)) : new MockResponse().setResponseCode(404);
+            }
+            if (segments.length == 3 && segments[0].equals("posts") && segments[2].equals("comments")) {
+                long postId = Long.parseLong(segments[1]);
+                return json(comments.stream().filter(comment -> comment.getPostId() == postId).toList());
+            }
+            if (segments.length == 1 && segments[0].equals("comments")) {
+                List<String> postIds = request.getRequestUrl().queryParameterValues("postId");
+                return json(comments.stream()
+                        .filter(comment -> postIds.isEmpty() || postIds.contains(String.valueOf(comment.getPostId())))
+                        .toList());
+            }
+        } catch (NumberFormatException e) {
+            return new MockResponse().setResponseCode(404);
+        }
+        return new MockResponse().setResponseCode(404);
+    }
+
+    private MockResponse json(Object body) {
+        try {
+            return new MockResponse()
+                    .setResponseCode(200)
+                    .setBody(objectMapper.writeValueAsString(body))
+                    .addHeader("Content-Type", "application/json");
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.LimiterProperties;
+import com.fake.api.jsonplaceholder.exception.TooManyRequestsException;
+import com.fake.api.jsonplaceholder.exception.UpstreamException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class AdaptiveLimiterTest {
+
+    private LimiterProperties properties = new LimiterProperties();
+
+    private SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    @BeforeEach
+    public void setUp() {
+        properties.setInitialLimit(2);
+        properties.setMinLimit(1);
+        properties.setQueueSize(1);
+        properties.setQueueTimeout(Duration.ofSeconds(5));
+    }
+
+    @Test
+    public void testQueuesThenRejects() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter(properties);
+        limiter.bindTo(registry);
+
+        // Two calls take the slots, a third one waits, a fourth one is rejected
+        List<Sinks.One<String>> answers = new ArrayList<>();
+        List<Mono<String>> calls = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            Sinks.One<String> answer = Sinks.one();
+            answers.add(answer);
+            calls.add(limiter.limit(answer::asMono).cache());
+            calls.get(i).subscribe();
+        }
+        assertEquals(2, limiter.inFlight());
+        assertEquals(1, registry.get("upstream.limiter.queued").gauge().value());
+        assertThrows(TooManyRequestsException.class, () -> limiter.limit(() -> Mono.just("rejected")).block());
+        assertEquals(1, registry.get("upstream.limiter.rejections").functionCounter().count());
+
+        // The waiting call starts when a slot is released
+        answers.get(0).tryEmitValue("first");
+        assertEquals("first", calls.get(0).block());
+        assertEquals(0, registry.get("upstream.limiter.queued").gauge().value());
+        answers.get(1).tryEmitValue("second");
+        answers.get(2).tryEmitValue("third");
+        assertEquals("third", calls.get(2).block());
+        assertEquals(0, limiter.inFlight());
+    }
+
+    @Test
+    public void testQueueTimeout() {
+        properties.setInitialLimit(1);
+        properties.setQueueTimeout(Duration.ofMillis(50));
+        AdaptiveLimiter limiter = new AdaptiveLimiter(properties);
+
+        limiter.limit(Mono::<String>never).subscribe();
+
+        assertThrows(TooManyRequestsException.class, () -> limiter.limit(() -> Mono.just("late")).block());
+        assertEquals(1, limiter.inFlight());
+    }
+
+    @Test
+    public void testLimitGrowsWithFastAnswersAndShrinksOnFailures() {
+        properties.setInitialLimit(10);
+        AdaptiveLimiter limiter = new AdaptiveLimiter(properties);
+
+        // Steady answers while the limit is in use grow it
+        for (int round = 0; round < 20; round++) {
+            List<Mono<String>> calls = new ArrayList<>();
+            for (int i = 0; i < limiter.currentLimit(); i++) {
+                calls.add(limiter.limit(() -> Mono.delay(Duration.ofMillis(20)).thenReturn("steady")).cache());
+                calls.get(i).subscribe();
+            }
+            calls.forEach(Mono::block);
+        }
+        int grown = limiter.currentLimit();
+        assertTrue(grown > 10, "limit " + grown);
+
+        // Server errors bring it down again
+        for (int i = 0; i < 5; i++) {
+            assertThrows(UpstreamException.class, () -> limiter.limit(
+                    () -> Mono.error(new UpstreamException("Server error", 500))).block());
+        }
+        assertTrue(limiter.currentLimit() < grown, "limit " + limiter.currentLimit());
+    }
+
+    @Test
+    public void testShrinksOncePerRoundTrip() {
+        properties.setInitialLimit(10);
+        AdaptiveLimiter limiter = new AdaptiveLimiter(properties);
+
+        // A burst of calls sent together all fail
+        List<Sinks.One<String>> answers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Sinks.One<String> answer = Sinks.one();
+            answers.add(answer);
+            limiter.limit(answer::asMono).subscribe(value -> { }, error -> { });
+        }
+        answers.forEach(answer -> answer.tryEmitError(new UpstreamException("Server error", 500)));
+
+        // Assertions: the burst reports one congestion event, a later failure another one
+        assertEquals(9, limiter.currentLimit());
+        assertThrows(UpstreamException.class, () -> limiter.limit(
+                () -> Mono.error(new UpstreamException("Server error", 500))).block());
+        assertEquals(8, limiter.currentLimit());
+    }
+}
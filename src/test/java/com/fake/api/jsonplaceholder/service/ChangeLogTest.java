@@ -0,0 +1,130 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ChangeLogProperties;
+import com.fake.api.jsonplaceholder.model.ChangeFeed;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fake.api.jsonplaceholder.model.PostChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class ChangeLogTest {
+
+    private ChangeLogProperties properties = new ChangeLogProperties();
+
+    private ChangeLog changeLog;
+
+    @BeforeEach
+    public void setUp() {
+        properties.setCapacity(4);
+        properties.setMaxBatch(3);
+        changeLog = new ChangeLog(properties);
+    }
+
+    private void append(long postId) {
+        changeLog.append(PostChange.Type.UPDATED, PostChange.Source.API, postId, new Post(postId, 1L, "Title", "Body"));
+    }
+
+    @Test
+    public void testRead() {
+        append(1);
+        append(2);
+
+        ChangeFeed all = changeLog.read(0);
+        ChangeFeed after = changeLog.read(1);
+        ChangeFeed none = changeLog.read(2);
+
+        // Assertions
+        assertEquals(List.of(1L, 2L), all.getChanges().stream().map(PostChange::getSeq).toList());
+        assertEquals(2, all.getLastSeq());
+        assertEquals(List.of(2L), after.getChanges().stream().map(PostChange::getPostId).toList());
+        assertTrue(none.getChanges().isEmpty());
+        assertEquals(2, none.getLastSeq());
+        assertFalse(none.isReset());
+        assertThrows(IllegalArgumentException.class, () -> changeLog.read(-1));
+    }
+
+    @Test
+    public void testReadIsBatched() {
+        for (long id = 1; id <= 4; id++) {
+            append(id);
+        }
+
+        ChangeFeed first = changeLog.read(0);
+        ChangeFeed second = changeLog.read(first.getLastSeq());
+
+        // Assertions
+        assertEquals(3, first.getChanges().size());
+        assertEquals(List.of(4L), second.getChanges().stream().map(PostChange::getSeq).toList());
+    }
+
+    @Test
+    public void testOverwrittenChangesAskForReset() {
+        for (long id = 1; id <= 6; id++) {
+            append(id);
+        }
+
+        ChangeFeed overwritten = changeLog.read(1);
+        ChangeFeed oldestKept = changeLog.read(2);
+        ChangeFeed ahead = changeLog.read(10);
+
+        // Assertions
+        assertTrue(overwritten.isReset());
+        assertEquals(6, overwritten.getLastSeq());
+        assertFalse(oldestKept.isReset());
+        assertEquals(3L, oldestKept.getChanges().get(0).getSeq());
+        assertTrue(ahead.isReset());
+    }
+
+    @Test
+    public void testPollWaitsForChange() {
+        append(1);
+
+        // Append a change once the poll is waiting
+        Mono.delay(Duration.ofMillis(100)).subscribe(tick -> append(2));
+        ChangeFeed feed = changeLog.poll(1, Duration.ofSeconds(5)).block(Duration.ofSeconds(5));
+
+        // Assertions
+        assertEquals(List.of(2L), feed.getChanges().stream().map(PostChange::getSeq).toList());
+    }
+
+    @Test
+    public void testPollTimesOut() {
+        append(1);
+
+        ChangeFeed feed = changeLog.poll(1, Duration.ofMillis(50)).block(Duration.ofSeconds(5));
+
+        // Assertions
+        assertTrue(feed.getChanges().isEmpty());
+        assertEquals(1, feed.getLastSeq());
+    }
+
+    @Test
+    public void testFollow() {
+        append(1);
+        append(2);
+        append(3);
+        append(4);
+
+        // The backlog comes in batches, then changes appended later
+        Mono.delay(Duration.ofMillis(100), Schedulers.single()).subscribe(tick -> append(5));
+        List<Long> seqs = changeLog.follow(0)
+                .flatMapIterable(ChangeFeed::getChanges)
+                .map(PostChange::getSeq)
+                .take(5)
+                .collectList()
+                .block(Duration.ofSeconds(5));
+
+        // Assertions
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L), seqs);
+    }
+}
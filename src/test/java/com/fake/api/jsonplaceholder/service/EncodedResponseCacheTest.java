@@ -0,0 +1,164 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ResponseCacheProperties;
+import com.fake.api.jsonplaceholder.model.Post;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class EncodedResponseCacheTest {
+
+    private EncodedResponseCache cache;
+
+    private AtomicInteger loads = new AtomicInteger();
+
+    private List<Post> posts = List.of(new Post(1L, 1L, "Title", "Body"));
+
+    @BeforeEach
+    public void setUp() {
+        cache = new EncodedResponseCache(new ResponseCacheProperties());
+    }
+
+    private Mono<ResponseEntity<List<Post>>> load() {
+        return Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return new ResponseEntity<>(posts, HttpStatus.OK);
+        });
+    }
+
+    private ResponseEntity<byte[]> get(HttpHeaders headers) {
+        return cache.serve("posts", headers, Post.class, null, this::load).block();
+    }
+
+    @Test
+    public void testEncodedBodyIsReused() {
+        ResponseEntity<byte[]> first = get(new HttpHeaders());
+        ResponseEntity<byte[]> second = get(new HttpHeaders());
+
+        // Assertions
+        assertEquals(HttpStatus.OK, second.getStatusCode());
+        assertEquals(MediaType.APPLICATION_JSON, second.getHeaders().getContentType());
+        assertEquals("[{\"id\":1,\"userId\":1,\"title\":\"Title\",\"body\":\"Body\"}]", new String(second.getBody(), StandardCharsets.UTF_8));
+        assertTrue(first.getBody() == second.getBody());
+        assertEquals(first.getHeaders().getETag(), second.getHeaders().getETag());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testIfNoneMatchAnsweredWithoutLoading() {
+        String etag = get(new HttpHeaders()).getHeaders().getETag();
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setIfNoneMatch(etag);
+        ResponseEntity<byte[]> notModified = get(headers);
+
+        // Assertions
+        assertEquals(HttpStatus.NOT_MODIFIED, notModified.getStatusCode());
+        assertNull(notModified.getBody());
+        assertEquals(etag, notModified.getHeaders().getETag());
+        assertEquals(1, loads.get());
+    }
+
+    @Test
+    public void testXmlVariant() {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setAccept(MediaType.parseMediaTypes("application/json;q=0.5, application/xml"));
+
+        ResponseEntity<byte[]> xml = get(headers);
+        ResponseEntity<byte[]> json = get(new HttpHeaders());
+
+        // Assertions
+        assertEquals(MediaType.APPLICATION_XML, xml.getHeaders().getContentType());
+        assertTrue(new String(xml.getBody(), StandardCharsets.UTF_8).contains("<item><id>1</id><userId>1</userId><title>Title</title>"));
+        assertEquals(MediaType.APPLICATION_JSON, json.getHeaders().getContentType());
+        assertTrue(!xml.getHeaders().getETag().equals(json.getHeaders().getETag()));
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testGzipVariant() throws IOException {
+        List<Post> many = new ArrayList<>();
+        for (long id = 1; id <= 100; id++) {
+            many.add(new Post(id, 1L, "Title " + id, "Body " + id));
+        }
+        posts = many;
+        HttpHeaders headers = new HttpHeaders();
+        headers.set(HttpHeaders.ACCEPT_ENCODING, "br, gzip;q=0.8");
+
+        ResponseEntity<byte[]> gzip = get(headers);
+        ResponseEntity<byte[]> identity = get(new HttpHeaders());
+
+        // Assertions
+        assertEquals("gzip", gzip.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertNull(identity.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING));
+        assertTrue(gzip.getBody().length < identity.getBody().length);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip.getBody()))) {
+            assertArrayEquals(identity.getBody(), in.readAllBytes());
+        }
+        assertTrue(gzip.getHeaders().getVary().contains(HttpHeaders.ACCEPT_ENCODING));
+        assertEquals(1, loads.get());
+
+        // Either validator revalidates
+        HttpHeaders conditional = new HttpHeaders();
+        conditional.setIfNoneMatch(gzip.getHeaders().getETag());
+        assertEquals(HttpStatus.NOT_MODIFIED, get(conditional).getStatusCode());
+    }
+
+    @Test
+    public void testFieldProjection() {
+        get(new HttpHeaders());
+        ResponseEntity<byte[]> projected = cache.serve("posts", new HttpHeaders(), Post.class, Set.of("id", "title"), this::load).block();
+
+        HttpHeaders xml = new HttpHeaders();
+        xml.setAccept(List.of(MediaType.APPLICATION_XML));
+        ResponseEntity<byte[]> projectedXml = cache.serve("posts", xml, Post.class, Set.of("id", "title"), this::load).block();
+
+        // Assertions
+        assertEquals("[{\"id\":1,\"title\":\"Title\"}]", new String(projected.getBody(), StandardCharsets.UTF_8));
+        assertTrue(new String(projectedXml.getBody(), StandardCharsets.UTF_8).contains("<item><id>1</id><title>Title</title></item>"));
+        assertEquals(3, loads.get());
+    }
+
+    @Test
+    public void testInvalidateAll() {
+        get(new HttpHeaders());
+
+        cache.invalidateAll();
+        get(new HttpHeaders());
+
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    public void testStaleResponseNotKept() {
+        Mono<ResponseEntity<List<Post>>> stale = Mono.fromSupplier(() -> {
+            loads.incrementAndGet();
+            return ResponseEntity.ok().header(HttpHeaders.WARNING, "110 - \"Response is Stale\"").body(posts);
+        });
+
+        ResponseEntity<byte[]> response = cache.serve("posts", new HttpHeaders(), Post.class, null, () -> stale).block();
+        cache.serve("posts", new HttpHeaders(), Post.class, null, () -> stale).block();
+
+        // Assertions
+        assertEquals("110 - \"Response is Stale\"", response.getHeaders().getFirst(HttpHeaders.WARNING));
+        assertEquals(2, loads.get());
+    }
+}
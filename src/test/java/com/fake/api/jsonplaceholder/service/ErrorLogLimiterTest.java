@@ -0,0 +1,55 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ErrorLogProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ErrorLogLimiterTest {
+
+    private AtomicLong now = new AtomicLong();
+
+    private ErrorLogProperties properties = new ErrorLogProperties();
+
+    private SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private ErrorLogLimiter limiter;
+
+    @BeforeEach
+    public void setUp() {
+        properties.setMaxPerInterval(2);
+        properties.setInterval(Duration.ofSeconds(1));
+        limiter = new ErrorLogLimiter(properties, now::get);
+        limiter.bindTo(registry);
+    }
+
+    @Test
+    public void testRateLimited() {
+        assertEquals(0, limiter.acquire());
+        assertEquals(0, limiter.acquire());
+        assertEquals(-1, limiter.acquire());
+        assertEquals(-1, limiter.acquire());
+
+        // The next interval reports what was left out
+        now.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertEquals(2, limiter.acquire());
+        assertEquals(0, limiter.acquire());
+        assertEquals(2.0, registry.get("errors.log.suppressed").counter().count());
+    }
+
+    @Test
+    public void testSampled() {
+        properties.setSampleRate(0.0);
+
+        assertEquals(-1, limiter.acquire());
+        assertEquals(-1, limiter.acquire());
+
+        properties.setSampleRate(1.0);
+        assertEquals(2, limiter.acquire());
+    }
+}
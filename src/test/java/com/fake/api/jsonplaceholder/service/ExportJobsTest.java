@@ -0,0 +1,188 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ExportProperties;
+import com.fake.api.jsonplaceholder.exception.NotFoundException;
+import com.fake.api.jsonplaceholder.exception.TooManyRequestsException;
+import com.fake.api.jsonplaceholder.exception.UpstreamException;
+import com.fake.api.jsonplaceholder.model.ExportJob;
+import com.fake.api.jsonplaceholder.model.ExportRequest;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import reactor.core.publisher.Flux;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ExportJobsTest {
+
+    @TempDir
+    private Path directory;
+
+    private PostsService postsService = mock(PostsService.class);
+
+    private ExportJobs exportJobs;
+
+    private List<Post> page1 = List.of(
+            new Post(1L, 1L, "Title 1", "Body 1"),
+            new Post(2L, 1L, "Title, quoted \"2\"", "Body\nwith lines"));
+    private List<Post> page2 = List.of(new Post(3L, 1L, "Title 3", "Body 3"));
+
+    @AfterEach
+    public void tearDown() {
+        exportJobs.stop();
+    }
+
+    private ExportJobs exportJobs(int concurrency, int queueSize) {
+        ExportProperties properties = new ExportProperties();
+        properties.setDirectory(directory.toString());
+        properties.getJobs().setConcurrency(concurrency);
+        properties.getJobs().setQueueSize(queueSize);
+        exportJobs = new ExportJobs(properties, postsService);
+        exportJobs.start();
+        return exportJobs;
+    }
+
+    private ExportRequest request(ExportJob.Compression compression, String fields, ExportJob.Format... formats) {
+        ExportRequest request = new ExportRequest();
+        request.setUserId(1L);
+        request.setFormats(List.of(formats));
+        request.setCompression(compression);
+        request.setFields(fields);
+        return request;
+    }
+
+    private ExportJob awaitFinished(String id) throws InterruptedException {
+        for (int i = 0; i < 100; i++) {
+            ExportJob job = exportJobs.getJob(id);
+            if (job.getStatus() == ExportJob.Status.SUCCEEDED || job.getStatus() == ExportJob.Status.FAILED) {
+                return job;
+            }
+            Thread.sleep(50);
+        }
+        throw new AssertionError("Export " + id + " did not finish");
+    }
+
+    @Test
+    public void testExportAllFormats() throws Exception {
+        when(postsService.getPostPages(1L, null, 100)).thenReturn(Flux.just(page1, page2));
+
+        ExportJob accepted = exportJobs(2, 20).submit(request(ExportJob.Compression.NONE, null,
+                ExportJob.Format.JSON, ExportJob.Format.XML, ExportJob.Format.NDJSON, ExportJob.Format.CSV));
+        ExportJob job = awaitFinished(accepted.getId());
+
+        // Assertions
+        assertEquals(ExportJob.Status.SUCCEEDED, job.getStatus());
+        assertEquals(3, job.getRecordsWritten());
+        Path json = exportJobs.getFile(job.getId(), ExportJob.Format.JSON);
+        Path xml = exportJobs.getFile(job.getId(), ExportJob.Format.XML);
+        Path ndjson = exportJobs.getFile(job.getId(), ExportJob.Format.NDJSON);
+        Path csv = exportJobs.getFile(job.getId(), ExportJob.Format.CSV);
+        assertEquals(Files.size(json) + Files.size(xml) + Files.size(ndjson) + Files.size(csv), job.getBytesWritten());
+
+        assertEquals(new ObjectMapper().writeValueAsString(List.of(page1.get(0), page1.get(1), page2.get(0))), Files.readString(json));
+        JsonNode items = new XmlMapper().readTree(xml.toFile()).get("item");
+        assertEquals("Body\nwith lines", items.get(1).get("body").asText());
+        assertEquals(3, Files.readAllLines(ndjson).size());
+        assertEquals("id,userId,title,body\r\n"
+                + "1,1,Title 1,Body 1\r\n"
+                + "2,1,\"Title, quoted \"\"2\"\"\",\"Body\nwith lines\"\r\n"
+                + "3,1,Title 3,Body 3\r\n", Files.readString(csv));
+    }
+
+    @Test
+    public void testExportGzipWithFields() throws Exception {
+        when(postsService.getPostPages(1L, null, 100)).thenReturn(Flux.just(page1, page2));
+
+        ExportJob accepted = exportJobs(2, 20).submit(request(ExportJob.Compression.GZIP, "title,id",
+                ExportJob.Format.NDJSON, ExportJob.Format.CSV));
+        ExportJob job = awaitFinished(accepted.getId());
+
+        // The first requested format is the default file
+        Path ndjson = exportJobs.getFile(job.getId(), null);
+        assertEquals("posts.ndjson.gz", ndjson.getFileName().toString());
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(ndjson))) {
+            assertEquals("{\"id\":1,\"title\":\"Title 1\"}", new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().findFirst().get());
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(exportJobs.getFile(job.getId(), ExportJob.Format.CSV)))) {
+            assertEquals("id,title", new String(in.readAllBytes(), StandardCharsets.UTF_8).lines().findFirst().get());
+        }
+        assertThrows(NotFoundException.class, () -> exportJobs.getFile(job.getId(), ExportJob.Format.JSON));
+    }
+
+    @Test
+    public void testFailedExportLeavesNoFiles() throws Exception {
+        when(postsService.getPostPages(1L, null, 100))
+                .thenReturn(Flux.concat(Flux.just(page1), Flux.error(new UpstreamException("Server error", 500))));
+
+        ExportJob accepted = exportJobs(2, 20).submit(request(ExportJob.Compression.NONE, null, ExportJob.Format.JSON));
+        ExportJob job = awaitFinished(accepted.getId());
+
+        // Assertions
+        assertEquals(ExportJob.Status.FAILED, job.getStatus());
+        assertEquals("Server error", job.getError());
+        assertEquals(2, job.getRecordsWritten());
+        assertThrows(NotFoundException.class, () -> exportJobs.getFile(job.getId(), null));
+        assertFalse(Files.exists(directory.resolve("exports").resolve(job.getId())));
+    }
+
+    @Test
+    public void testRetentionStartsWhenExportFinishes() throws Exception {
+        // The export runs longer than finished exports are kept
+        when(postsService.getPostPages(1L, null, 100)).thenReturn(Flux.just(page1).delayElements(Duration.ofMillis(500)));
+        ExportProperties properties = new ExportProperties();
+        properties.setDirectory(directory.toString());
+        properties.getJobs().setRetention(Duration.ofMillis(300));
+        exportJobs = new ExportJobs(properties, postsService);
+        exportJobs.start();
+
+        ExportJob accepted = exportJobs.submit(request(ExportJob.Compression.GZIP, null, ExportJob.Format.JSON));
+        ExportJob job = awaitFinished(accepted.getId());
+
+        // Assertions
+        assertEquals(ExportJob.Status.SUCCEEDED, job.getStatus());
+        assertTrue(Files.exists(exportJobs.getFile(job.getId(), null)));
+    }
+
+    @Test
+    public void testConcurrencyAndQueueAreBounded() {
+        // Exports never finish, so the first one keeps the only slot
+        when(postsService.getPostPages(1L, null, 100)).thenReturn(Flux.never());
+        exportJobs(1, 1);
+
+        ExportJob running = exportJobs.submit(request(ExportJob.Compression.NONE, null, ExportJob.Format.JSON));
+        ExportJob queued = exportJobs.submit(request(ExportJob.Compression.NONE, null, ExportJob.Format.JSON));
+
+        // Assertions
+        assertEquals(ExportJob.Status.RUNNING, exportJobs.getJob(running.getId()).getStatus());
+        assertEquals(ExportJob.Status.QUEUED, exportJobs.getJob(queued.getId()).getStatus());
+        assertEquals(1, exportJobs.runningCount());
+        assertThrows(TooManyRequestsException.class,
+                () -> exportJobs.submit(request(ExportJob.Compression.NONE, null, ExportJob.Format.JSON)));
+    }
+
+    @Test
+    public void testUnknownFieldIsRejected() {
+        exportJobs(1, 1);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> exportJobs.submit(request(ExportJob.Compression.NONE, "author", ExportJob.Format.CSV)));
+        assertThrows(NotFoundException.class, () -> exportJobs.getJob("missing"));
+    }
+}
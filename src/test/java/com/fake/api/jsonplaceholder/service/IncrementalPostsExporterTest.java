@@ -0,0 +1,118 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ExportProperties;
+import com.fake.api.jsonplaceholder.model.ExportDelta;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class IncrementalPostsExporterTest {
+
+    @TempDir
+    private Path directory;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private List<Post> snapshot = List.of(
+            new Post(1L, 1L, "Title 1", "Body 1"),
+            new Post(2L, 1L, "Title 2", "Body 2"),
+            new Post(3L, 2L, "Title 3", "Body 3"));
+
+    private List<Post> nextSnapshot = List.of(
+            new Post(1L, 1L, "Title 1", "Body 1"),
+            new Post(2L, 1L, "Title 2", "Changed body"),
+            new Post(4L, 2L, "Title 4", "Body 4"));
+
+    @Test
+    public void testFirstExportWritesFullFiles() throws Exception {
+        IncrementalPostsExporter exporter = exporter(100);
+
+        // Export the first snapshot
+        ExportDelta delta = exporter.export(snapshot).block();
+
+        // Assertions
+        assertEquals(new ExportDelta(3, 0, 0, 0, true), delta);
+        assertEquals(objectMapper.writeValueAsString(snapshot), Files.readString(directory.resolve("posts.json")));
+        assertFalse(Files.exists(directory.resolve("posts.changes.ndjson")));
+    }
+
+    @Test
+    public void testNextExportAppendsOnlyTheDelta() throws Exception {
+        IncrementalPostsExporter exporter = exporter(100);
+
+        // Export two snapshots
+        exporter.export(snapshot).block();
+        ExportDelta delta = exporter.export(nextSnapshot).block();
+
+        // Assertions: full files untouched, one segment record per change
+        assertEquals(new ExportDelta(1, 1, 1, 1, false), delta);
+        assertEquals(objectMapper.writeValueAsString(snapshot), Files.readString(directory.resolve("posts.json")));
+        assertEquals(3, Files.readAllLines(directory.resolve("posts.changes.ndjson")).size());
+    }
+
+    @Test
+    public void testStateIsRestoredFromIndexAndSegment() throws Exception {
+        // Export two snapshots, then start over with a new exporter on the same directory
+        exporter(100).export(snapshot).block();
+        exporter(100).export(nextSnapshot).block();
+        ExportDelta delta = exporter(100).export(nextSnapshot).block();
+
+        // Assertions
+        assertEquals(new ExportDelta(0, 0, 0, 3, false), delta);
+    }
+
+    @Test
+    public void testCompactionRewritesFullFiles() throws Exception {
+        IncrementalPostsExporter exporter = exporter(3);
+
+        // Export two snapshots, the three changes reach the compaction threshold
+        exporter.export(snapshot).block();
+        ExportDelta delta = exporter.export(nextSnapshot).block();
+
+        // Assertions
+        assertEquals(new ExportDelta(1, 1, 1, 1, true), delta);
+        assertEquals(objectMapper.writeValueAsString(nextSnapshot), Files.readString(directory.resolve("posts.json")));
+        assertFalse(Files.exists(directory.resolve("posts.changes.ndjson")));
+    }
+
+    @Test
+    public void testFilteredExportInvalidatesIndex() throws Exception {
+        ExportProperties properties = properties(100);
+        PostsExporter postsExporter = new PostsExporter(properties);
+        IncrementalPostsExporter exporter = new IncrementalPostsExporter(properties, postsExporter);
+
+        // A full export, then a projected export of one user over the same files
+        exporter.export(snapshot).block();
+        postsExporter.export(snapshot.subList(0, 2), Set.of("id")).block();
+        exporter.invalidate().block();
+        ExportDelta delta = exporter.export(nextSnapshot).block();
+
+        // Assertions: the full files are rewritten instead of appending to the segment
+        assertEquals(new ExportDelta(3, 0, 0, 0, true), delta);
+        assertEquals(objectMapper.writeValueAsString(nextSnapshot), Files.readString(directory.resolve("posts.json")));
+        assertTrue(Files.exists(directory.resolve("posts.index")));
+        assertFalse(Files.exists(directory.resolve("posts.changes.ndjson")));
+    }
+
+    private IncrementalPostsExporter exporter(int compactThreshold) {
+        ExportProperties properties = properties(compactThreshold);
+        return new IncrementalPostsExporter(properties, new PostsExporter(properties));
+    }
+
+    private ExportProperties properties(int compactThreshold) {
+        ExportProperties properties = new ExportProperties();
+        properties.setDirectory(directory.toString());
+        properties.getIncremental().setCompactThreshold(compactThreshold);
+        return properties;
+    }
+}
@@ -0,0 +1,72 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.SearchProperties;
+import com.fake.api.jsonplaceholder.model.Post;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PostSearchIndexTest {
+
+    private Post post1 = new Post(1L, 1L, "sunt aut facere repellat", "quia et suscipit");
+    private Post post2 = new Post(2L, 1L, "qui est esse", "est rerum tempore");
+    private Post post3 = new Post(3L, 2L, "ea molestias quasi", "et iusto sed quo");
+    private Post post4 = new Post(4L, 2L, "eum et est occaecati", "ullam et saepe");
+
+    @Test
+    public void testNotReadyUntilBuilt() {
+        PostSearchIndex index = new PostSearchIndex(new SearchProperties());
+
+        assertFalse(index.isReady());
+        index.rebuild(List.of(post1));
+        assertTrue(index.isReady());
+    }
+
+    @Test
+    public void testTokenPrefixAndMultiTermQueries() {
+        PostSearchIndex index = index(false);
+
+        // Assertions
+        assertEquals(List.of(post2, post4), index.search("est", null));
+        assertEquals(List.of(post2, post4), index.search("EST", null));
+        assertEquals(List.of(post1), index.search("s* a*", null));
+        assertEquals(List.of(post3, post4), index.search("e*", 2L));
+        assertEquals(List.of(post2), index.search("qui est", null));
+        assertEquals(List.of(post4), index.search("est", 2L));
+        assertEquals(List.of(), index.search("missing", null));
+        assertEquals(List.of(), index.search("  ", null));
+    }
+
+    @Test
+    public void testBodyIsIndexedWhenEnabled() {
+        assertEquals(List.of(), index(false).search("rerum", null));
+        assertEquals(List.of(post2), index(true).search("rerum", null));
+    }
+
+    @Test
+    public void testIncrementalUpdates() {
+        PostSearchIndex index = index(false);
+
+        // Replace, add and remove posts
+        index.index(new Post(1L, 1L, "qui facere", "body"));
+        index.index(new Post(5L, 3L, "qui novus", "body"));
+        index.remove(2L);
+
+        // Assertions
+        assertEquals(List.of(), index.search("sunt", null));
+        assertEquals(List.of(1L, 5L), index.search("qui", null).stream().map(Post::getId).toList());
+        assertEquals(List.of(post4), index.search("est", null));
+    }
+
+    private PostSearchIndex index(boolean includeBody) {
+        SearchProperties properties = new SearchProperties();
+        properties.setIncludeBody(includeBody);
+        PostSearchIndex index = new PostSearchIndex(properties);
+        index.rebuild(List.of(post1, post2, post3, post4));
+        return index;
+    }
+}
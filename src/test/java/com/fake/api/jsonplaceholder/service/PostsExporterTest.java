@@ -0,0 +1,125 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ExportProperties;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.xml.XmlMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PostsExporterTest {
+
+    @TempDir
+    private Path directory;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private XmlMapper xmlMapper = new XmlMapper();
+
+    private List<Post> posts = List.of(
+            new Post(1L, 1L, "Title 1", "Body 1"),
+            new Post(2L, 1L, "Title 2", "Body\nwith <markup> & lines"));
+
+    @Test
+    public void testExport() throws Exception {
+        PostsExporter exporter = new PostsExporter(properties(false));
+
+        // Export the posts
+        exporter.export(posts).block();
+
+        // Assertions
+        assertEquals(objectMapper.writeValueAsString(posts), Files.readString(directory.resolve("posts.json")));
+        JsonNode xml = xmlMapper.readTree(directory.resolve("posts.xml").toFile());
+        assertEquals("Body\nwith <markup> & lines", xml.get("item").get(1).get("body").asText());
+        assertNoTemporaryFiles();
+    }
+
+    @Test
+    public void testExport_Fields() throws Exception {
+        PostsExporter exporter = new PostsExporter(properties(false));
+
+        // Export only the ids and titles
+        exporter.export(posts, Set.of("id", "title")).block();
+
+        // Assertions
+        assertEquals("[{\"id\":1,\"title\":\"Title 1\"},{\"id\":2,\"title\":\"Title 2\"}]",
+                Files.readString(directory.resolve("posts.json")));
+        JsonNode xml = xmlMapper.readTree(directory.resolve("posts.xml").toFile());
+        assertEquals("Title 2", xml.get("item").get(1).get("title").asText());
+        assertNull(xml.get("item").get(1).get("body"));
+    }
+
+    @Test
+    public void testExport_Metrics() throws Exception {
+        PostsExporter exporter = new PostsExporter(properties(true));
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        exporter.bindTo(registry);
+
+        // Export the posts
+        exporter.export(posts).block();
+
+        // Sizes are counted before compression
+        assertEquals(1, registry.get("export.serialization").tag("format", "json").timer().count());
+        assertEquals(1, registry.get("export.serialization").tag("format", "xml").timer().count());
+        assertEquals(objectMapper.writeValueAsBytes(posts).length,
+                registry.get("export.size").tag("format", "json").summary().totalAmount());
+    }
+
+    @Test
+    public void testExport_Gzip() throws Exception {
+        PostsExporter exporter = new PostsExporter(properties(true));
+
+        // Export the posts
+        exporter.export(posts).block();
+
+        // Assertions
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(directory.resolve("posts.json.gz")))) {
+            assertEquals(objectMapper.writeValueAsString(posts), new String(in.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(directory.resolve("posts.xml.gz")))) {
+            assertEquals(2, xmlMapper.readTree(in).get("item").size());
+        }
+        assertNoTemporaryFiles();
+    }
+
+    @Test
+    public void testExport_ReplacesPreviousExport() throws Exception {
+        PostsExporter exporter = new PostsExporter(properties(false));
+
+        // Export twice, the second export must fully replace the first one
+        exporter.export(posts).block();
+        exporter.export(posts.subList(0, 1)).block();
+
+        // Assertions
+        assertEquals(1, objectMapper.readTree(directory.resolve("posts.json").toFile()).size());
+        assertNoTemporaryFiles();
+    }
+
+    private ExportProperties properties(boolean gzip) {
+        ExportProperties properties = new ExportProperties();
+        properties.setDirectory(directory.toString());
+        properties.setGzip(gzip);
+        return properties;
+    }
+
+    private void assertNoTemporaryFiles() throws Exception {
+        try (Stream<Path> files = Files.list(directory)) {
+            assertTrue(files.noneMatch(file -> file.toString().endsWith(".tmp")));
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ChangeLogProperties;
+import com.fake.api.jsonplaceholder.config.ExportProperties;
+import com.fake.api.jsonplaceholder.config.ReplicaProperties;
+import com.fake.api.jsonplaceholder.model.Comment;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fake.api.jsonplaceholder.model.PostChange;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.mockwebserver.Dispatcher;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PostsReplicaTest {
+
+    private MockWebServer mockWebServer;
+
+    private MutableClock clock = new MutableClock();
+
+    @TempDir
+    private Path directory;
+
+    private ReplicaProperties properties = new ReplicaProperties();
+
+    private PostsSnapshot postsSnapshot;
+
+    private ChangeLog changeLog = new ChangeLog(new ChangeLogProperties());
+
+    private PostsReplica replica;
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private Post post1 = new Post(1L, 1L, "Title 1", "Body 1");
+    private Post post2 = new Post(2L, 1L, "Title 2", "Body 2");
+    private Post post3 = new Post(3L, 2L, "Title 1", "Body 3");
+    private Comment comment1 = new Comment(1L, 1L, "Name 1", "Email 1", "Body 1");
+    private Comment comment2 = new Comment(1L, 2L, "Name 2", "Email 2", "Body 2");
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                try {
+                    Object body = request.getPath().equals("/posts")
+                            ? new Post[]{post1, post2, post3}
+                            : new Comment[]{comment1, comment2};
+                    return new MockResponse()
+                            .setResponseCode(200)
+                            .setBody(objectMapper.writeValueAsString(body))
+                            .addHeader("Content-Type", "application/json");
+                } catch (IOException e) {
+                    return new MockResponse().setResponseCode(500);
+                }
+            }
+        });
+        mockWebServer.start();
+
+        properties.setEnabled(true);
+        properties.setMaxStaleness(Duration.ofMinutes(15));
+        ExportProperties exportProperties = new ExportProperties();
+        exportProperties.setDirectory(directory.toString());
+        postsSnapshot = new PostsSnapshot(exportProperties);
+        WebClient webClient = WebClient.builder().baseUrl(mockWebServer.url("/").toString()).build();
+        replica = new PostsReplica(properties, webClient, postsSnapshot, changeLog, clock);
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    public void testNotLoaded() {
+        assertNull(replica.getPosts(null, null));
+        assertNull(replica.getPost("1"));
+        assertNull(replica.getComments("1", null));
+    }
+
+    @Test
+    public void testLookups() {
+        replica.refresh().block();
+
+        // Assertions
+        assertEquals(List.of(post1, post2, post3), replica.getPosts(null, null));
+        assertEquals(List.of(post1, post2), replica.getPosts(1L, null));
+        assertEquals(List.of(post1, post3), replica.getPosts(null, "Title 1"));
+        assertEquals(List.of(post3), replica.getPosts(2L, "Title 1"));
+        assertEquals(List.of(), replica.getPosts(9L, null));
+        assertEquals(post2, replica.getPost("2"));
+        assertEquals(List.of(comment1, comment2), replica.getComments("1", null));
+        assertEquals(List.of(comment2), replica.getComments("1", 2L));
+        assertEquals(List.of(), replica.getComments("2", null));
+        assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void testMissesFallBackToUpstream() {
+        replica.refresh().block();
+
+        // Unknown or invalid ids are left to the upstream
+        assertNull(replica.getPost("99"));
+        assertNull(replica.getPost("abc"));
+        assertNull(replica.getComments("99", null));
+    }
+
+    @Test
+    public void testStaleCopyIsIgnored() {
+        replica.refresh().block();
+
+        clock.advance(Duration.ofMinutes(16));
+
+        assertNull(replica.getPost("1"));
+        assertNull(replica.getPosts(null, null));
+    }
+
+    @Test
+    public void testUpstreamChangesAreRecorded() {
+        replica.refresh().block();
+        Post changed = new Post(2L, 1L, "Title 2", "Changed body");
+        Post added = new Post(4L, 2L, "Title 4", "Body 4");
+
+        replica.load(List.of(post1, changed, added), List.of(comment1, comment2), 0);
+
+        // The first load has nothing to compare with, the second records the differences in upstream order
+        List<PostChange> changes = changeLog.read(0).getChanges();
+        assertEquals(3, changes.size());
+        assertEquals(PostChange.Type.UPDATED, changes.get(0).getType());
+        assertEquals(changed, changes.get(0).getPost());
+        assertEquals(PostChange.Type.CREATED, changes.get(1).getType());
+        assertEquals(4L, changes.get(1).getPostId());
+        assertEquals(PostChange.Type.DELETED, changes.get(2).getType());
+        assertEquals(3L, changes.get(2).getPostId());
+        assertTrue(changes.stream().allMatch(change -> change.getSource() == PostChange.Source.UPSTREAM));
+    }
+
+    @Test
+    public void testWritesBypassReplicaUntilNextLoad() {
+        replica.refresh().block();
+
+        replica.onPostUpdated("1");
+
+        // Assertions
+        assertNull(replica.getPost("1"));
+        assertNull(replica.getPosts(1L, null));
+        assertEquals(post2, replica.getPost("2"));
+
+        replica.refresh().block();
+
+        assertEquals(post1, replica.getPost("1"));
+        assertEquals(List.of(post1, post2), replica.getPosts(1L, null));
+    }
+
+    @Test
+    public void testWarmStartFromSnapshot() {
+        replica.refresh().block();
+        assertTrue(Files.exists(postsSnapshot.target()));
+
+        // A new instance serves the saved copy without calling the upstream
+        PostsReplica restarted = new PostsReplica(properties, null, postsSnapshot, changeLog, clock);
+        restarted.warmStart();
+
+        // Assertions
+        assertEquals(List.of(post1, post2, post3), restarted.getPosts(null, null));
+        assertEquals(post2, restarted.getPost("2"));
+        assertEquals(List.of(comment1, comment2), restarted.getComments("1", null));
+        assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void testStaleSnapshotIsIgnored() {
+        replica.refresh().block();
+
+        // The snapshot keeps the time it was taken, not the time it was read
+        clock.advance(Duration.ofMinutes(16));
+        PostsReplica restarted = new PostsReplica(properties, null, postsSnapshot, changeLog, clock);
+        restarted.warmStart();
+
+        assertNull(restarted.getPost("1"));
+    }
+
+    @Test
+    public void testSnapshotIsStampedWithItsOwnLoad() throws Exception {
+        ExportProperties exportProperties = new ExportProperties();
+        exportProperties.setDirectory(directory.toString());
+        Instant refreshedAt = clock.instant();
+        WebClient webClient = WebClient.builder().baseUrl(mockWebServer.url("/").toString()).build();
+        PostsReplica[] racing = new PostsReplica[1];
+        // Another load swaps in a newer copy before the snapshot of the refresh is written
+        PostsSnapshot racingSnapshot = new PostsSnapshot(exportProperties) {
+            @Override
+            public void write(List<Post> posts, List<Comment> comments, Instant writtenAt) throws IOException {
+                clock.advance(Duration.ofMinutes(5));
+                racing[0].load(List.of(post1), List.of(), 0);
+                super.write(posts, comments, writtenAt);
+            }
+        };
+        racing[0] = new PostsReplica(properties, webClient, racingSnapshot, changeLog, clock);
+
+        racing[0].refresh().block();
+
+        // Assertions
+        assertEquals(refreshedAt, racingSnapshot.read().orElseThrow().writtenAt());
+        assertEquals(List.of(post1, post2, post3), racingSnapshot.read().orElseThrow().posts());
+    }
+
+    @Test
+    public void testSnapshotDisabled() {
+        properties.setSnapshot(false);
+
+        replica.refresh().block();
+
+        assertEquals(post1, replica.getPost("1"));
+        assertTrue(Files.notExists(postsSnapshot.target()));
+    }
+
+    private static class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-01-01T00:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -1,37 +1,93 @@
 package com.fake.api.jsonplaceholder.service;
 
+import com.fake.api.jsonplaceholder.config.CacheProperties;
+import com.fake.api.jsonplaceholder.config.ChangeLogProperties;
+import com.fake.api.jsonplaceholder.config.ExportProperties;
+import com.fake.api.jsonplaceholder.config.HedgingProperties;
+import com.fake.api.jsonplaceholder.config.LimiterProperties;
+import com.fake.api.jsonplaceholder.config.ReplicaProperties;
+import com.fake.api.jsonplaceholder.config.ResilienceProperties;
+import com.fake.api.jsonplaceholder.config.ResponseCacheProperties;
+import com.fake.api.jsonplaceholder.config.SearchProperties;
 import com.fake.api.jsonplaceholder.exception.NotFoundException;
+import com.fake.api.jsonplaceholder.exception.UpstreamException;
+import com.fake.api.jsonplaceholder.model.BatchItem;
 import com.fake.api.jsonplaceholder.model.Comment;
 import com.fake.api.jsonplaceholder.model.Post;
+import com.fake.api.jsonplaceholder.model.PostChange;
+import com.fake.api.jsonplaceholder.model.PostWithComments;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import okhttp3.mockwebserver.Dispatcher;
 import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.RecordedRequest;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.mockito.InjectMocks;
-import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.reactive.function.client.WebClient;
 
 import java.io.File;
 import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
-import static org.mockito.ArgumentMatchers.*;
-import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import okhttp3.mockwebserver.MockWebServer;
 
 public class PostsServiceTest {
 
     private MockWebServer mockWebServer;
 
-    @Mock
-    private WebClient.Builder webClientBuilder;
+    @Spy
+    private PostsCache postsCache = new PostsCache(new CacheProperties());
+
+    @Spy
+    private ChangeLog changeLog = new ChangeLog(new ChangeLogProperties());
+
+    @Spy
+    private PostsReplica postsReplica = new PostsReplica(new ReplicaProperties(), null, null, changeLog);
+
+    @Spy
+    private EncodedResponseCache encodedResponseCache = new EncodedResponseCache(new ResponseCacheProperties());
+
+    @Spy
+    private RequestCoalescer requestCoalescer = new RequestCoalescer();
+
+    @Spy
+    private RequestHedger requestHedger = new RequestHedger(new HedgingProperties());
+
+    @Spy
+    private UpstreamResilience upstreamResilience = new UpstreamResilience(singleAttempt());
+
+    @Spy
+    private AdaptiveLimiter adaptiveLimiter = new AdaptiveLimiter(new LimiterProperties());
+
+    @Spy
+    private PostSearchIndex postSearchIndex = new PostSearchIndex(new SearchProperties());
+
+    @Spy
+    private PostsExporter postsExporter = new PostsExporter(new ExportProperties());
+
+    @Spy
+    private IncrementalPostsExporter incrementalPostsExporter = new IncrementalPostsExporter(new ExportProperties(), postsExporter);
 
     @InjectMocks
     private PostsService postsService;
@@ -45,10 +101,9 @@ public class PostsServiceTest {
 
         MockitoAnnotations.openMocks(this); // Inicializa los mocks
 
-        // Configura el WebClient.Builder para apuntar al MockWebServer
+        // Configura el WebClient para apuntar al MockWebServer
         WebClient webClient = WebClient.builder().baseUrl(mockWebServer.url("/").toString()).build();
-        when(webClientBuilder.baseUrl(any())).thenReturn(webClientBuilder);
-        when(webClientBuilder.build()).thenReturn(webClient);
+        ReflectionTestUtils.setField(postsService, "webClient", webClient);
     }
 
     @AfterEach
@@ -69,13 +124,8 @@ public class PostsServiceTest {
                 .setBody(responseBody)
                 .addHeader("Content-Type", "application/json"));
 
-        // Configure WebClient mock to use MockWebServer URL
-        WebClient webClient = WebClient.builder().baseUrl(mockWebServer.url("/").toString()).build();
-        when(webClientBuilder.baseUrl(any())).thenReturn(webClientBuilder);
-        when(webClientBuilder.build()).thenReturn(webClient);
-
         // Call service method to get posts
-        ResponseEntity<List<Post>> actualResponseEntity = postsService.getPosts(null, null);
+        ResponseEntity<List<Post>> actualResponseEntity = postsService.getPosts(null, null).block();
 
         // Assertions
         assertEquals(HttpStatus.OK, actualResponseEntity.getStatusCode());
@@ -99,7 +149,7 @@ public class PostsServiceTest {
                 .addHeader("Content-Type", "application/json"));
 
         // Call service method to get post
-        ResponseEntity<Post> actualResponseEntity = postsService.getPost("1");
+        ResponseEntity<Post> actualResponseEntity = postsService.getPost("1").block();
 
         // Assertions
         assertEquals(HttpStatus.OK, actualResponseEntity.getStatusCode());
@@ -118,12 +168,51 @@ public class PostsServiceTest {
 
         // Call service method to get a post by ID that does not exist
         try {
-            postsService.getPost("999");
+            postsService.getPost("999").block();
         } catch (NotFoundException e) {
             assertEquals("Post not found", e.getMessage());
         }
     }
 
+    @Test
+    public void testGetPostById_NotFoundIsRemembered() throws Exception {
+        // Enqueue a single mock response 404 Not Found
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404));
+
+        // Assertions: the second lookup is answered without calling the API, with a stackless exception
+        assertThrows(NotFoundException.class, () -> postsService.getPost("999").block());
+        NotFoundException e = assertThrows(NotFoundException.class, () -> postsService.getPost("999").block());
+        assertEquals("Post not found", e.getMessage());
+        assertEquals(0, e.getStackTrace().length);
+        assertEquals(1, mockWebServer.getRequestCount());
+
+        // A new post may take the id, so it is looked up again
+        postsCache.onPostCreated();
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Post(999L, 1L, "Title", "Body")))
+                .addHeader("Content-Type", "application/json"));
+        assertEquals(999L, postsService.getPost("999").block().getBody().getId());
+    }
+
+
+    @Test
+    public void testWritesOnlyForgetTheirOwnNotFound() {
+        postsCache.putPostMissing("1");
+        postsCache.putPostMissing("999");
+        postsCache.putCommentsMissing("1", null);
+        postsCache.putCommentsMissing("999", null);
+
+        // Updating or deleting a post says nothing about other ids
+        postsCache.onPostUpdated("1");
+        postsCache.onPostDeleted("2");
+
+        // Assertions
+        assertFalse(postsCache.isPostMissing("1"));
+        assertFalse(postsCache.isCommentsMissing("1", null));
+        assertTrue(postsCache.isPostMissing("999"));
+        assertTrue(postsCache.isCommentsMissing("999", null));
+    }
 
     @Test
     public void testFetchAndSaveData() throws Exception {
@@ -138,7 +227,7 @@ public class PostsServiceTest {
                 .addHeader("Content-Type", "application/json"));
 
         // Call service method to fetch and save data
-        ResponseEntity<List<Post>> actualResponseEntity = postsService.fetchAndSaveData(null, null);
+        ResponseEntity<List<Post>> actualResponseEntity = postsService.fetchAndSaveData(null, null, null).block();
 
         // Assertions
         assertEquals(HttpStatus.OK, actualResponseEntity.getStatusCode());
@@ -153,6 +242,22 @@ public class PostsServiceTest {
         File xmlFile = new File("posts.xml");
         assertTrue(jsonFile.exists());
         assertTrue(xmlFile.exists());
+        verify(incrementalPostsExporter, never()).invalidate();
+    }
+
+    @Test
+    public void testFetchAndSaveData_FilteredInvalidatesIncrementalExport() throws Exception {
+        // Enqueue a mock response with the posts of one user
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Post[]{new Post(1L, 1L, "Title", "Body")}))
+                .addHeader("Content-Type", "application/json"));
+
+        // Call service method to fetch and save the posts of user 1
+        postsService.fetchAndSaveData(1L, null, null).block();
+
+        // The saved files no longer hold every post
+        verify(incrementalPostsExporter).invalidate();
     }
 
     @Test
@@ -168,7 +273,7 @@ public class PostsServiceTest {
                 .addHeader("Content-Type", "application/json"));
 
         // Call service method to get comments
-        ResponseEntity<List<Comment>> actualResponseEntity = postsService.getComments("1", null);
+        ResponseEntity<List<Comment>> actualResponseEntity = postsService.getComments("1", null).block();
 
         // Assertions
         assertEquals(HttpStatus.OK, actualResponseEntity.getStatusCode());
@@ -196,7 +301,7 @@ public class PostsServiceTest {
                 .addHeader("Content-Type", "application/json"));
 
         // Call service method to create post
-        ResponseEntity<Post> actualResponseEntity = postsService.createPost(mockPost);
+        ResponseEntity<Post> actualResponseEntity = postsService.createPost(mockPost).block();
 
         // Assertions
         assertEquals(HttpStatus.CREATED, actualResponseEntity.getStatusCode());
@@ -221,7 +326,7 @@ public class PostsServiceTest {
                 .addHeader("Content-Type", "application/json"));
 
         // Call service method to update post
-        ResponseEntity<Post> actualResponseEntity = postsService.updatePost("1", mockPost);
+        ResponseEntity<Post> actualResponseEntity = postsService.updatePost("1", mockPost).block();
 
         // Assertions
         assertEquals(HttpStatus.OK, actualResponseEntity.getStatusCode());
@@ -242,25 +347,18 @@ public class PostsServiceTest {
         String originalPostResponseBody = objectMapper.writeValueAsString(mockOriginalPost);
         String updatedPostResponseBody = objectMapper.writeValueAsString(mockUpdatedPost);
 
-        // Enqueue mock response for original post
+        // The original post is requested first, then the patch
         mockWebServer.enqueue(new MockResponse()
                 .setResponseCode(200)
                 .setBody(originalPostResponseBody)
                 .addHeader("Content-Type", "application/json"));
-
-        // Enqueue mock response for updated post
         mockWebServer.enqueue(new MockResponse()
                 .setResponseCode(200)
                 .setBody(updatedPostResponseBody)
                 .addHeader("Content-Type", "application/json"));
 
-        // Configure WebClient mock to use MockWebServer URL
-        WebClient webClient = WebClient.builder().baseUrl(mockWebServer.url("/").toString()).build();
-        when(webClientBuilder.baseUrl(any())).thenReturn(webClientBuilder);
-        when(webClientBuilder.build()).thenReturn(webClient);
-
         // Call service method to patch post
-        ResponseEntity<Post> actualResponseEntity = postsService.patchPost("1", mockUpdatedPost);
+        ResponseEntity<Post> actualResponseEntity = postsService.patchPost("1", mockUpdatedPost).block();
 
         // Assertions
         assertEquals(HttpStatus.OK, actualResponseEntity.getStatusCode());
@@ -268,6 +366,47 @@ public class PostsServiceTest {
         assertEquals(mockOriginalPost.getUserId(), actualResponseEntity.getBody().getUserId());
         assertEquals(mockUpdatedPost.getTitle(), actualResponseEntity.getBody().getTitle());
         assertEquals(mockOriginalPost.getBody(), actualResponseEntity.getBody().getBody());
+        assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void testPatchPostUsesCachedOriginal() throws Exception {
+        // Cache the original post with a first read
+        Post mockOriginalPost = new Post(1L, 1L, "Original Title", "Original Body");
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(mockOriginalPost))
+                .addHeader("Content-Type", "application/json"));
+        postsService.getPost("1").block();
+
+        // Only the patch reaches the client
+        Post mockUpdatedPost = new Post(null, 2L, null, "Updated Body");
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(mockUpdatedPost))
+                .addHeader("Content-Type", "application/json"));
+        ResponseEntity<Post> actualResponseEntity = postsService.patchPost("1", mockUpdatedPost).block();
+
+        // Assertions
+        assertEquals(new Post(1L, 2L, "Original Title", "Updated Body"), actualResponseEntity.getBody());
+        assertEquals(new Post(1L, 1L, "Original Title", "Original Body"), mockOriginalPost);
+        mockWebServer.takeRequest();
+        assertEquals("PATCH", mockWebServer.takeRequest().getMethod());
+        assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void testPatchPostIsNotSentWhenOriginalFails() throws Exception {
+        // The original post cannot be read
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+
+        // Assertions: the patch never reaches the client and nothing is invalidated
+        assertThrows(UpstreamException.class,
+                () -> postsService.patchPost("1", new Post(null, null, "Updated Title", null)).block());
+        assertEquals("GET", mockWebServer.takeRequest().getMethod());
+        assertEquals(1, mockWebServer.getRequestCount());
+        verify(postsCache, never()).onPostUpdated("1");
+        assertEquals(0, changeLog.lastSeq());
     }
 
     @Test
@@ -281,13 +420,37 @@ public class PostsServiceTest {
                 .setBody(responseBody));
 
         // Call service method to delete post
-        ResponseEntity<Void> actualResponseEntity = postsService.deletePost("1");
+        ResponseEntity<Void> actualResponseEntity = postsService.deletePost("1").block();
 
         // Assertions
         assertEquals(HttpStatus.NO_CONTENT, actualResponseEntity.getStatusCode());
         assertTrue(actualResponseEntity.getBody() == null || actualResponseEntity.getBody().toString().isEmpty());
     }
 
+    @Test
+    public void testWritesAreRecordedInChangeLog() throws Exception {
+        Post updatedPost = new Post(1L, 1L, "Updated Title", "Updated Body");
+
+        // Enqueue mock responses for an update and a delete
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(updatedPost))
+                .addHeader("Content-Type", "application/json"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200));
+
+        postsService.updatePost("1", updatedPost).block();
+        postsService.deletePost("1").block();
+
+        // Assertions
+        List<PostChange> changes = changeLog.read(0).getChanges();
+        assertEquals(2, changes.size());
+        assertEquals(PostChange.Type.UPDATED, changes.get(0).getType());
+        assertEquals(updatedPost, changes.get(0).getPost());
+        assertEquals(PostChange.Type.DELETED, changes.get(1).getType());
+        assertEquals(1L, changes.get(1).getPostId());
+        assertEquals(PostChange.Source.API, changes.get(1).getSource());
+    }
+
     // Helper method to verify client error handling
     @Test
     public void testServerErrorHandling() {
@@ -299,10 +462,398 @@ public class PostsServiceTest {
 
         // Call service method to get a post by ID
         try {
-            postsService.getPost("1");
+            postsService.getPost("1").block();
         } catch (RuntimeException e) {
             assertEquals("Server error", e.getMessage());
         }
     }
 
-}
\ No newline at end of file
+    @Test
+    public void testGetPostById_Cached() throws Exception {
+        // Mock response body
+        Post mockPost = new Post(1L, 1L, "Title", "Body");
+        String responseBody = objectMapper.writeValueAsString(mockPost);
+
+        // Enqueue a single mock response, the second call must not reach the server
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(responseBody)
+                .addHeader("Content-Type", "application/json"));
+
+        // Call service method twice
+        postsService.getPost("1").block();
+        ResponseEntity<Post> actualResponseEntity = postsService.getPost("1").block();
+
+        // Assertions
+        assertEquals(HttpStatus.OK, actualResponseEntity.getStatusCode());
+        assertEquals(mockPost.getTitle(), actualResponseEntity.getBody().getTitle());
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void testUpdatePost_InvalidatesCache() throws Exception {
+        // Mock response bodies
+        Post mockPost = new Post(1L, 1L, "Title", "Body");
+        Post mockUpdatedPost = new Post(1L, 1L, "Updated Title", "Updated Body");
+
+        // Enqueue mock responses for get, update and get again
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(mockPost))
+                .addHeader("Content-Type", "application/json"));
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(mockUpdatedPost))
+                .addHeader("Content-Type", "application/json"));
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(mockUpdatedPost))
+                .addHeader("Content-Type", "application/json"));
+
+        // Call service methods
+        postsService.getPost("1").block();
+        postsService.updatePost("1", mockUpdatedPost).block();
+        ResponseEntity<Post> actualResponseEntity = postsService.getPost("1").block();
+
+        // Assertions
+        assertEquals(mockUpdatedPost.getTitle(), actualResponseEntity.getBody().getTitle());
+        assertEquals(3, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void testGetPostById_ConcurrentCallersShareOneRequest() throws Exception {
+        int callers = 20;
+        Post mockPost = new Post(1L, 1L, "Title", "Body");
+        String responseBody = objectMapper.writeValueAsString(mockPost);
+
+        // Enqueue a slow response, plus spares so an extra request would not hang the server
+        for (int i = 0; i < callers; i++) {
+            mockWebServer.enqueue(new MockResponse()
+                    .setResponseCode(200)
+                    .setBody(responseBody)
+                    .addHeader("Content-Type", "application/json")
+                    .setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        }
+
+        // Call service method from all callers at once
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ResponseEntity<Post>>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return postsService.getPost("1").block();
+            }));
+        }
+        start.countDown();
+
+        // Assertions
+        for (Future<ResponseEntity<Post>> result : results) {
+            assertEquals(mockPost.getTitle(), result.get(10, TimeUnit.SECONDS).getBody().getTitle());
+        }
+        executor.shutdown();
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void testGetPostById_ConcurrentCallersShareFailureWithoutCachingIt() throws Exception {
+        int callers = 10;
+
+        // Enqueue a slow server error followed by a successful response
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(500)
+                .setHeadersDelay(500, TimeUnit.MILLISECONDS));
+        for (int i = 0; i < callers; i++) {
+            mockWebServer.enqueue(new MockResponse()
+                    .setResponseCode(200)
+                    .setBody(objectMapper.writeValueAsString(new Post(1L, 1L, "Title", "Body")))
+                    .addHeader("Content-Type", "application/json"));
+        }
+
+        // Call service method from all callers at once
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<ResponseEntity<Post>>> results = new ArrayList<>();
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> {
+                start.await();
+                return postsService.getPost("1").block();
+            }));
+        }
+        start.countDown();
+
+        // Assertions: every waiter sees the failure, the next call goes upstream again
+        for (Future<ResponseEntity<Post>> result : results) {
+            Exception e = assertThrows(Exception.class, () -> result.get(10, TimeUnit.SECONDS));
+            assertEquals("Server error", e.getCause().getMessage());
+        }
+        executor.shutdown();
+        assertEquals(1, mockWebServer.getRequestCount());
+        assertEquals(HttpStatus.OK, postsService.getPost("1").block().getStatusCode());
+        assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void testStreamPosts() throws Exception {
+        // Mock response body
+        Post mockPost1 = new Post(1L, 1L, "Title 1", "Body 1");
+        Post mockPost2 = new Post(2L, 1L, "Title 2", "Body 2");
+        String responseBody = objectMapper.writeValueAsString(new Post[]{mockPost1, mockPost2});
+
+        // Enqueue a mock response
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(responseBody)
+                .addHeader("Content-Type", "application/json"));
+
+        // Call service method to stream posts
+        List<Post> actualPosts = postsService.streamPosts(1L, null).collectList().block();
+
+        // Assertions
+        assertEquals(List.of(mockPost1, mockPost2), actualPosts);
+        assertEquals("/posts?userId=1", mockWebServer.takeRequest().getPath());
+    }
+
+    @Test
+    public void testStreamComments_NotFound() {
+        // Enqueue a mock response 404 Not Found
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(404)
+        );
+
+        // Call service method to stream comments of a post that does not exist
+        NotFoundException e = assertThrows(NotFoundException.class,
+                () -> postsService.streamComments("999", null).collectList().block());
+        assertEquals("Post not found", e.getMessage());
+    }
+
+    @Test
+    public void testGetPostPages() throws Exception {
+        // Mock responses: a full page, then a short one that ends the export
+        Post mockPost1 = new Post(1L, 1L, "Title 1", "Body 1");
+        Post mockPost2 = new Post(2L, 1L, "Title 2", "Body 2");
+        Post mockPost3 = new Post(3L, 1L, "Title 3", "Body 3");
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Post[]{mockPost1, mockPost2}))
+                .addHeader("Content-Type", "application/json"));
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Post[]{mockPost3}))
+                .addHeader("Content-Type", "application/json"));
+
+        // Call service method to get the posts page by page
+        List<List<Post>> pages = postsService.getPostPages(1L, null, 2).collectList().block();
+
+        // Assertions
+        assertEquals(List.of(List.of(mockPost1, mockPost2), List.of(mockPost3)), pages);
+        assertEquals("/posts?userId=1&_limit=2&_page=1", mockWebServer.takeRequest().getPath());
+        assertEquals("/posts?userId=1&_limit=2&_page=2", mockWebServer.takeRequest().getPath());
+        assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void testSearchPosts() throws Exception {
+        // Mock response body with all the posts, used to build the index
+        Post mockPost1 = new Post(1L, 1L, "qui est esse", "Body 1");
+        Post mockPost2 = new Post(2L, 2L, "qui est sunt", "Body 2");
+        Post mockPost3 = new Post(3L, 1L, "ea molestias", "Body 3");
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Post[]{mockPost1, mockPost2, mockPost3}))
+                .addHeader("Content-Type", "application/json"));
+
+        // Call service method to search posts
+        List<Post> allMatches = postsService.searchPosts("Qui es*", null, null).block().getBody();
+        List<Post> userMatches = postsService.searchPosts("qui", 2L, null).block().getBody();
+
+        // Assertions: the index is built once, then queries stay local
+        assertEquals(List.of(mockPost1, mockPost2), allMatches);
+        assertEquals(List.of(mockPost2), userMatches);
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void testGetPostsBatch() throws Exception {
+        // Answer by path, the batch fetches run concurrently
+        Post mockPost1 = new Post(1L, 1L, "Title 1", "Body 1");
+        Post mockPost2 = new Post(2L, 1L, "Title 2", "Body 2");
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                try {
+                    return switch (request.getPath()) {
+                        case "/posts/1" -> new MockResponse().setResponseCode(200)
+                                .setBody(objectMapper.writeValueAsString(mockPost1))
+                                .addHeader("Content-Type", "application/json");
+                        case "/posts/2" -> new MockResponse().setResponseCode(200)
+                                .setBody(objectMapper.writeValueAsString(mockPost2))
+                                .addHeader("Content-Type", "application/json");
+                        default -> new MockResponse().setResponseCode(404);
+                    };
+                } catch (IOException e) {
+                    return new MockResponse().setResponseCode(500);
+                }
+            }
+        });
+
+        // Call service method with duplicated and missing ids
+        ResponseEntity<List<BatchItem>> actualResponseEntity = postsService.getPostsBatch(List.of("2", "1", "2", "99", "1")).block();
+
+        // Assertions
+        assertEquals(HttpStatus.OK, actualResponseEntity.getStatusCode());
+        assertEquals(List.of(
+                new BatchItem("2", 200, mockPost2, null),
+                new BatchItem("1", 200, mockPost1, null),
+                new BatchItem("99", 404, null, "Post not found")), actualResponseEntity.getBody());
+        assertEquals(3, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void testGetPostsBatch_ErrorStatuses() throws Exception {
+        // Each failing id keeps the status it would get when requested alone
+        Post mockPost1 = new Post(1L, 1L, "Title 1", "Body 1");
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) throws InterruptedException {
+                try {
+                    return switch (request.getPath()) {
+                        case "/posts/1" -> new MockResponse().setResponseCode(200)
+                                .setBody(objectMapper.writeValueAsString(mockPost1))
+                                .addHeader("Content-Type", "application/json");
+                        case "/posts/2" -> new MockResponse().setResponseCode(503);
+                        default -> new MockResponse().setResponseCode(400);
+                    };
+                } catch (IOException e) {
+                    return new MockResponse().setResponseCode(500);
+                }
+            }
+        });
+
+        // Call service method
+        ResponseEntity<List<BatchItem>> actualResponseEntity = postsService.getPostsBatch(List.of("1", "2", "3")).block();
+
+        // Assertions: an upstream server error is a bad gateway, an upstream client error is unexpected
+        assertEquals(HttpStatus.OK, actualResponseEntity.getStatusCode());
+        assertEquals(List.of(200, 502, 500), actualResponseEntity.getBody().stream().map(BatchItem::getStatus).toList());
+    }
+
+    @Test
+    public void testGetPostsWithComments() throws Exception {
+        // Mock response bodies for the posts and the bulk comments call
+        Post mockPost1 = new Post(1L, 1L, "Title 1", "Body 1");
+        Post mockPost2 = new Post(2L, 1L, "Title 2", "Body 2");
+        Comment mockComment1 = new Comment(1L, 1L, "Name 1", "Email 1", "Body 1");
+        Comment mockComment2 = new Comment(1L, 2L, "Name 2", "Email 2", "Body 2");
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Post[]{mockPost1, mockPost2}))
+                .addHeader("Content-Type", "application/json"));
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Comment[]{mockComment1, mockComment2}))
+                .addHeader("Content-Type", "application/json"));
+
+        // Call service method to get posts with comments
+        ResponseEntity<List<PostWithComments>> actualResponseEntity = postsService.getPostsWithComments(1L, null).block();
+
+        // Assertions: one call for the posts, one for all their comments
+        assertEquals(HttpStatus.OK, actualResponseEntity.getStatusCode());
+        assertEquals(List.of(
+                new PostWithComments(mockPost1, List.of(mockComment1, mockComment2)),
+                new PostWithComments(mockPost2, List.of())), actualResponseEntity.getBody());
+        assertEquals("/posts?userId=1", mockWebServer.takeRequest().getPath());
+        assertEquals("/comments?postId=1&postId=2", mockWebServer.takeRequest().getPath());
+
+        // Comments are now cached per post
+        assertEquals(List.of(), postsService.getComments("2", null).block().getBody());
+        assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void testGetPostsWithComments_CommentWithoutPost() throws Exception {
+        // The bulk comments call also returns a comment without postId
+        Post mockPost = new Post(1L, 1L, "Title 1", "Body 1");
+        Comment mockComment = new Comment(1L, 1L, "Name 1", "Email 1", "Body 1");
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Post[]{mockPost}))
+                .addHeader("Content-Type", "application/json"));
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(new Comment[]{mockComment, new Comment(null, 2L, "Name 2", "Email 2", "Body 2")}))
+                .addHeader("Content-Type", "application/json"));
+
+        // Assertions: the orphan comment is left out instead of failing the request
+        assertEquals(List.of(new PostWithComments(mockPost, List.of(mockComment))),
+                postsService.getPostsWithComments(1L, null).block().getBody());
+    }
+
+    @Test
+    public void testGetPostWithComments() throws Exception {
+        // Answer by path, the post and its comments are fetched concurrently
+        Post mockPost = new Post(1L, 1L, "Title", "Body");
+        Comment mockComment = new Comment(1L, 1L, "Name", "Email", "Body");
+        mockWebServer.setDispatcher(new Dispatcher() {
+            @Override
+            public MockResponse dispatch(RecordedRequest request) {
+                try {
+                    Object body = request.getPath().equals("/posts/1") ? mockPost : new Comment[]{mockComment};
+                    return new MockResponse().setResponseCode(200)
+                            .setBody(objectMapper.writeValueAsString(body))
+                            .addHeader("Content-Type", "application/json");
+                } catch (IOException e) {
+                    return new MockResponse().setResponseCode(500);
+                }
+            }
+        });
+
+        // Call service method to get the post with comments
+        ResponseEntity<PostWithComments> actualResponseEntity = postsService.getPostWithComments("1").block();
+
+        // Assertions
+        assertEquals(HttpStatus.OK, actualResponseEntity.getStatusCode());
+        assertEquals(new PostWithComments(mockPost, List.of(mockComment)), actualResponseEntity.getBody());
+        assertEquals(2, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void testGetPostById_StaleWhenUpstreamFails() {
+        // Only the stale copy of the post is cached, the upstream fails
+        Post mockPost = new Post(1L, 1L, "Title", "Body");
+        ReflectionTestUtils.setField(postsService, "postsCache", postsCacheWithExpiredEntry(mockPost));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+
+        // The stale copy is served with a warning
+        ResponseEntity<Post> actualResponseEntity = postsService.getPost("1").block();
+        assertEquals(HttpStatus.OK, actualResponseEntity.getStatusCode());
+        assertEquals(mockPost, actualResponseEntity.getBody());
+        assertEquals("110 - \"Response is Stale\"", actualResponseEntity.getHeaders().getFirst(HttpHeaders.WARNING));
+        assertEquals(1, mockWebServer.getRequestCount());
+    }
+
+    @Test
+    public void testGetPostById_ServerErrorWithoutStaleCopy() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(503));
+
+        UpstreamException e = assertThrows(UpstreamException.class, () -> postsService.getPost("1").block());
+        assertEquals(503, e.getStatus());
+    }
+
+    // A cache whose fresh entries expire at once, only the stale copy is left
+    private static PostsCache postsCacheWithExpiredEntry(Post post) {
+        CacheProperties properties = new CacheProperties();
+        properties.getPost().setTtl(Duration.ZERO);
+        PostsCache cache = new PostsCache(properties);
+        cache.putPost(String.valueOf(post.getId()), post);
+        return cache;
+    }
+
+    // Retries are covered by UpstreamResilienceTest, here every call is a single attempt
+    private static ResilienceProperties singleAttempt() {
+        ResilienceProperties properties = new ResilienceProperties();
+        properties.getRetry().setMaxAttempts(1);
+        return properties;
+    }
+
+}
@@ -0,0 +1,103 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ExportProperties;
+import com.fake.api.jsonplaceholder.model.Comment;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PostsSnapshotTest {
+
+    @TempDir
+    private Path directory;
+
+    private PostsSnapshot postsSnapshot;
+
+    private Instant writtenAt = Instant.parse("2024-01-01T00:00:00Z");
+
+    private List<Post> posts = List.of(
+            new Post(1L, 1L, "Title", "Body 1"),
+            new Post(2L, null, "Title", null),
+            new Post(3L, 2L, "Título ñ €", "Body 3"));
+
+    private List<Comment> comments = List.of(
+            new Comment(1L, 1L, "Name", "user@example.com", "Body"),
+            new Comment(1L, 2L, "Name", "user@example.com", null));
+
+    @BeforeEach
+    public void setUp() {
+        ExportProperties properties = new ExportProperties();
+        properties.setDirectory(directory.toString());
+        postsSnapshot = new PostsSnapshot(properties);
+    }
+
+    @Test
+    public void testRoundTrip() throws IOException {
+        postsSnapshot.write(posts, comments, writtenAt);
+
+        Optional<PostsSnapshot.Contents> contents = postsSnapshot.read();
+
+        // Assertions
+        assertTrue(contents.isPresent());
+        assertEquals(posts, contents.get().posts());
+        assertEquals(comments, contents.get().comments());
+        assertEquals(writtenAt, contents.get().writtenAt());
+    }
+
+    @Test
+    public void testMissingSnapshot() {
+        assertTrue(postsSnapshot.read().isEmpty());
+    }
+
+    @Test
+    public void testCorruptSnapshotIsIgnored() throws IOException {
+        postsSnapshot.write(posts, comments, writtenAt);
+        byte[] bytes = Files.readAllBytes(postsSnapshot.target());
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(postsSnapshot.target(), bytes);
+
+        // Assertions
+        assertTrue(postsSnapshot.read().isEmpty());
+        IOException error = assertThrows(IOException.class, () -> PostsSnapshot.decode(ByteBuffer.wrap(bytes)));
+        assertEquals("Snapshot checksum mismatch", error.getMessage());
+    }
+
+    @Test
+    public void testTruncatedSnapshot() throws IOException {
+        byte[] bytes = PostsSnapshot.encode(posts, comments, writtenAt);
+
+        IOException error = assertThrows(IOException.class,
+                () -> PostsSnapshot.decode(ByteBuffer.wrap(bytes, 0, bytes.length - 10)));
+        assertEquals("Truncated snapshot", error.getMessage());
+    }
+
+    @Test
+    public void testRepeatedStringsAreStoredOnce() throws IOException {
+        List<Comment> many = new ArrayList<>();
+        for (long id = 1; id <= 500; id++) {
+            many.add(new Comment(id / 5 + 1, id, "Same name", "same@example.com", "Same body"));
+        }
+
+        byte[] snapshot = PostsSnapshot.encode(List.of(), many, writtenAt);
+        byte[] json = new ObjectMapper().writeValueAsBytes(many);
+
+        // Each comment costs its length prefix, null mask, two ids and three string references
+        assertEquals(32 + 4 + 3 * 4 + "Same namesame@example.comSame body".length() + 500 * (4 + 1 + 16 + 12), snapshot.length);
+        assertTrue(snapshot.length < json.length / 2);
+    }
+}
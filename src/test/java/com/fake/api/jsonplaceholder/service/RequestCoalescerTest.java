@@ -0,0 +1,54 @@
+package com.fake.api.jsonplaceholder.service;
+
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class RequestCoalescerTest {
+
+    private RequestCoalescer requestCoalescer = new RequestCoalescer();
+
+    @Test
+    public void testJoinsCallInFlight() {
+        Sinks.One<String> answer = Sinks.one();
+        AtomicInteger calls = new AtomicInteger();
+
+        // Both callers subscribe before the answer arrives
+        Mono<String> first = requestCoalescer.join("posts", () -> answer.asMono().doOnSubscribe(s -> calls.incrementAndGet()));
+        Mono<String> second = requestCoalescer.join("posts", () -> answer.asMono().doOnSubscribe(s -> calls.incrementAndGet()));
+        StringBuilder results = new StringBuilder();
+        first.subscribe(results::append);
+        second.subscribe(results::append);
+        assertEquals(1, requestCoalescer.inFlightCount());
+
+        answer.tryEmitValue("a");
+
+        // Assertions: one call, both callers answered, nothing left in flight
+        assertEquals("aa", results.toString());
+        assertEquals(1, calls.get());
+        assertEquals(0, requestCoalescer.inFlightCount());
+    }
+
+    @Test
+    public void testFinishedCallKeepsNextCallInFlight() {
+        Sinks.Many<String> firstAnswer = Sinks.many().unicast().onBackpressureBuffer();
+        Sinks.One<String> secondAnswer = Sinks.one();
+        AtomicInteger calls = new AtomicInteger();
+
+        // The caller woken up by the first answer starts the next call for the same key
+        requestCoalescer.join("posts", () -> Mono.fromDirect(firstAnswer.asFlux()))
+                .subscribe(value -> requestCoalescer.join("posts", () -> secondAnswer.asMono().doOnSubscribe(s -> calls.incrementAndGet()))
+                        .subscribe());
+        firstAnswer.tryEmitNext("a");
+        firstAnswer.tryEmitComplete();
+
+        // Assertions: the end of the first call does not drop the second one
+        assertEquals(1, requestCoalescer.inFlightCount());
+        requestCoalescer.join("posts", () -> secondAnswer.asMono().doOnSubscribe(s -> calls.incrementAndGet())).subscribe();
+        assertEquals(1, calls.get());
+    }
+}
@@ -0,0 +1,153 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.HedgingProperties;
+import com.fake.api.jsonplaceholder.exception.NotFoundException;
+import com.fake.api.jsonplaceholder.exception.TooManyRequestsException;
+import com.fake.api.jsonplaceholder.exception.UpstreamException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RequestHedgerTest {
+
+    private HedgingProperties properties = new HedgingProperties();
+
+    private SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private AtomicInteger attempts = new AtomicInteger();
+
+    private AtomicBoolean firstCancelled = new AtomicBoolean();
+
+    // The first attempt is slow, every later one answers at once
+    private Supplier<Mono<String>> call = () -> attempts.getAndIncrement() == 0
+            ? Mono.delay(Duration.ofMillis(500)).thenReturn("first").doOnCancel(() -> firstCancelled.set(true))
+            : Mono.just("hedge");
+
+    @BeforeEach
+    public void setUp() {
+        properties.setEnabled(true);
+        properties.setMinDelay(Duration.ofMillis(20));
+    }
+
+    @Test
+    public void testHedgeWinsOverSlowCall() {
+        // A budget of 1 allows a hedge on every call
+        properties.setBudget(1);
+        RequestHedger hedger = new RequestHedger(properties);
+        hedger.bindTo(registry);
+
+        assertEquals("hedge", hedger.hedge(call).block());
+
+        // The slow call is cancelled and the hedge is counted
+        assertEquals(2, attempts.get());
+        assertTrue(firstCancelled.get());
+        assertEquals(1, registry.get("upstream.hedge.sent").functionCounter().count());
+        assertEquals(1, registry.get("upstream.hedge.won").functionCounter().count());
+    }
+
+    @Test
+    public void testFailedHedgeDoesNotFailSlowCall() {
+        properties.setBudget(1);
+        RequestHedger hedger = new RequestHedger(properties);
+        hedger.bindTo(registry);
+
+        // The hedge is rejected at once, the slow call still answers
+        Supplier<Mono<String>> failingHedge = () -> attempts.getAndIncrement() == 0
+                ? Mono.delay(Duration.ofMillis(200)).thenReturn("first")
+                : Mono.error(new TooManyRequestsException("Too many upstream requests"));
+
+        assertEquals("first", hedger.hedge(failingHedge).block());
+        assertEquals(2, attempts.get());
+        assertEquals(0, registry.get("upstream.hedge.won").functionCounter().count());
+    }
+
+    @Test
+    public void testErrorOnceBothCallsFail() {
+        properties.setBudget(1);
+        RequestHedger hedger = new RequestHedger(properties);
+
+        // The original fails after the hedge, its error is the one reported
+        Supplier<Mono<String>> failing = () -> attempts.getAndIncrement() == 0
+                ? Mono.delay(Duration.ofMillis(100)).then(Mono.error(new UpstreamException("Server error", 500)))
+                : Mono.error(new TooManyRequestsException("Too many upstream requests"));
+
+        UpstreamException e = assertThrows(UpstreamException.class, () -> hedger.hedge(failing).block());
+        assertEquals("Server error", e.getMessage());
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testNoHedgeAfterCallFailed() throws Exception {
+        properties.setBudget(1);
+        RequestHedger hedger = new RequestHedger(properties);
+
+        // A fast failure is reported without waiting for, or sending, a hedge
+        Supplier<Mono<String>> notFound = () -> {
+            attempts.incrementAndGet();
+            return Mono.error(new NotFoundException("Post not found"));
+        };
+
+        assertThrows(NotFoundException.class, () -> hedger.hedge(notFound).block(Duration.ofMillis(15)));
+        Thread.sleep(50);
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    public void testNoHedgeWithoutBudget() {
+        // 5% of a single call is not enough for a hedge
+        properties.setBudget(0.05);
+        RequestHedger hedger = new RequestHedger(properties);
+        hedger.bindTo(registry);
+
+        assertEquals("first", hedger.hedge(call).block());
+
+        assertEquals(1, attempts.get());
+        assertEquals(0, registry.get("upstream.hedge.sent").functionCounter().count());
+    }
+
+    @Test
+    public void testDelayFollowsPercentile() {
+        properties.setMinDelay(Duration.ofMillis(1));
+        properties.setMinSamples(64);
+        RequestHedger hedger = new RequestHedger(properties);
+
+        // Fast answers bring the delay down to its lower bound
+        for (int i = 0; i < 64; i++) {
+            hedger.hedge(() -> Mono.just("fast")).block();
+        }
+
+        assertEquals(Duration.ofMillis(1), hedger.currentDelay());
+    }
+
+    @Test
+    public void testWinningHedgesDoNotLowerDelay() {
+        // Every other call can be hedged, and the delay is the lower quartile
+        properties.setBudget(0.5);
+        properties.setPercentile(0.25);
+        properties.setMinDelay(Duration.ofMillis(5));
+        properties.setMinSamples(64);
+        RequestHedger hedger = new RequestHedger(properties);
+
+        // Original calls take 20ms, hedges answer at once
+        AtomicInteger calls = new AtomicInteger();
+        for (int i = 0; i < 128; i++) {
+            calls.set(0);
+            hedger.hedge(() -> calls.getAndIncrement() == 0
+                    ? Mono.delay(Duration.ofMillis(20)).thenReturn("first")
+                    : Mono.just("hedge")).block();
+        }
+
+        // The delay follows the original calls, not the hedges that beat them
+        assertTrue(hedger.currentDelay().compareTo(Duration.ofMillis(20)) >= 0, hedger.currentDelay().toString());
+    }
+}
@@ -0,0 +1,72 @@
+package com.fake.api.jsonplaceholder.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class UpstreamMetricsTest {
+
+    private MockWebServer mockWebServer;
+
+    private SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private WebClient webClient;
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+        webClient = WebClient.builder()
+                .baseUrl(mockWebServer.url("/").toString())
+                .filter(new UpstreamMetrics(registry))
+                .build();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    @Test
+    public void testRequestsAreTimedPerEndpointAndStatus() {
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("{}"));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(404));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(200).setBody("[]"));
+
+        // Two posts by id and a list of comments
+        webClient.get().uri("/posts/1").retrieve().toBodilessEntity().block();
+        webClient.get().uri("/posts/2").exchangeToMono(response -> response.releaseBody()).block();
+        webClient.get().uri("/posts/1/comments?id=3").retrieve().toBodilessEntity().block();
+
+        // Assertions
+        assertEquals(1, registry.get("upstream.requests")
+                .tags("endpoint", "GET /posts/{id}", "status", "200", "outcome", "SUCCESS").timer().count());
+        assertEquals(1, registry.get("upstream.requests")
+                .tags("endpoint", "GET /posts/{id}", "status", "404", "outcome", "CLIENT_ERROR").timer().count());
+        assertEquals(1, registry.get("upstream.requests")
+                .tags("endpoint", "GET /posts/{id}/comments", "status", "200").timer().count());
+    }
+
+    @Test
+    public void testRequestsWithoutAnswer() throws IOException {
+        mockWebServer.shutdown();
+
+        try {
+            webClient.delete().uri("/posts/1").retrieve().toBodilessEntity().block();
+        } catch (RuntimeException e) {
+            // Connection refused
+        }
+
+        assertEquals(1, registry.get("upstream.requests")
+                .tags("endpoint", "DELETE /posts/{id}", "status", "IO_ERROR").timer().count());
+        assertEquals(1, registry.get("upstream.errors").tag("endpoint", "DELETE /posts/{id}").counter().count());
+    }
+}
@@ -0,0 +1,126 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.ResilienceProperties;
+import com.fake.api.jsonplaceholder.exception.NotFoundException;
+import com.fake.api.jsonplaceholder.exception.TooManyRequestsException;
+import com.fake.api.jsonplaceholder.exception.UpstreamException;
+import io.github.resilience4j.circuitbreaker.CallNotPermittedException;
+import io.github.resilience4j.circuitbreaker.CircuitBreaker;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class UpstreamResilienceTest {
+
+    private ResilienceProperties properties = new ResilienceProperties();
+
+    private AtomicInteger attempts = new AtomicInteger();
+
+    @BeforeEach
+    public void setUp() {
+        properties.getRetry().setBackoff(Duration.ofMillis(1));
+        properties.getCircuitBreaker().setMinimumNumberOfCalls(4);
+        properties.getCircuitBreaker().setSlidingWindowSize(4);
+    }
+
+    @Test
+    public void testReadRetriesServerErrors() {
+        UpstreamResilience resilience = new UpstreamResilience(properties);
+
+        // Two server errors, then an answer
+        String result = resilience.read("GET", "/posts/1", () -> attempts.incrementAndGet() < 3
+                ? Mono.error(new UpstreamException("Server error", 500))
+                : Mono.just("post")).block();
+
+        assertEquals("post", result);
+        assertEquals(3, attempts.get());
+    }
+
+    @Test
+    public void testNoRetryOnNotFoundOrWrites() {
+        UpstreamResilience resilience = new UpstreamResilience(properties);
+
+        assertThrows(NotFoundException.class, () -> resilience.read("GET", "/posts/1", () -> {
+            attempts.incrementAndGet();
+            return Mono.error(new NotFoundException("Post not found"));
+        }).block());
+        assertThrows(UpstreamException.class, () -> resilience.write("POST", "/posts/", () -> {
+            attempts.incrementAndGet();
+            return Mono.error(new UpstreamException("Server error", 500));
+        }).block());
+
+        assertEquals(2, attempts.get());
+    }
+
+    @Test
+    public void testAttemptTimeout() {
+        properties.setAttemptTimeout(Duration.ofMillis(50));
+        properties.getRetry().setMaxAttempts(1);
+        UpstreamResilience resilience = new UpstreamResilience(properties);
+
+        Exception e = assertThrows(Exception.class, () -> resilience.read("GET", "/posts/1",
+                () -> Mono.delay(Duration.ofSeconds(5)).thenReturn("post")).block());
+        assertTrue(e.getCause() instanceof TimeoutException);
+    }
+
+    @Test
+    public void testOpenCircuitFailsFastPerEndpoint() {
+        properties.getRetry().setMaxAttempts(1);
+        UpstreamResilience resilience = new UpstreamResilience(properties);
+
+        // Fill the window of GET /posts/{id} with failures
+        for (int i = 1; i <= 4; i++) {
+            String uri = "/posts/" + i;
+            assertThrows(UpstreamException.class, () -> resilience.read("GET", uri,
+                    () -> Mono.error(new UpstreamException("Server error", 500))).block());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, resilience.circuitBreaker("GET", "/posts/9").getState());
+
+        // The call is refused without reaching the upstream
+        assertThrows(CallNotPermittedException.class, () -> resilience.read("GET", "/posts/5", () -> {
+            attempts.incrementAndGet();
+            return Mono.just("post");
+        }).block());
+        assertEquals(0, attempts.get());
+
+        // Other endpoints keep their own circuit
+        assertEquals("comments", resilience.read("GET", "/posts/5/comments", () -> Mono.just("comments")).block());
+    }
+
+    @Test
+    public void testLimiterRejectionsAreNotRecorded() {
+        properties.getRetry().setMaxAttempts(1);
+        UpstreamResilience resilience = new UpstreamResilience(properties);
+
+        // Rejections by the concurrency limit do not count as successful calls
+        for (int i = 0; i < 4; i++) {
+            assertThrows(TooManyRequestsException.class, () -> resilience.read("GET", "/posts/1",
+                    () -> Mono.error(new TooManyRequestsException("Too many upstream requests"))).block());
+        }
+        assertEquals(0, resilience.circuitBreaker("GET", "/posts/1").getMetrics().getNumberOfBufferedCalls());
+
+        // So the failures alone still open the circuit
+        for (int i = 0; i < 4; i++) {
+            assertThrows(UpstreamException.class, () -> resilience.read("GET", "/posts/1",
+                    () -> Mono.error(new UpstreamException("Server error", 500))).block());
+        }
+        assertEquals(CircuitBreaker.State.OPEN, resilience.circuitBreaker("GET", "/posts/1").getState());
+    }
+
+    @Test
+    public void testEndpoint() {
+        assertEquals("GET /posts", UpstreamResilience.endpoint("GET", "/posts?userId=1"));
+        assertEquals("POST /posts", UpstreamResilience.endpoint("POST", "/posts/"));
+        assertEquals("GET /posts/{id}", UpstreamResilience.endpoint("GET", "/posts/12"));
+        assertEquals("GET /posts/{id}/comments", UpstreamResilience.endpoint("GET", "/posts/12/comments?id=3"));
+        assertEquals("GET /comments", UpstreamResilience.endpoint("GET", "/comments?postId=1&postId=2"));
+    }
+}
@@ -0,0 +1,137 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.RevalidationProperties;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+public class UpstreamRevalidationTest {
+
+    private MockWebServer mockWebServer;
+
+    private WebClient webClient;
+
+    private SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+    private RevalidationProperties properties = new RevalidationProperties();
+
+    private ObjectMapper objectMapper = new ObjectMapper();
+
+    private Post post = new Post(1L, 1L, "Title", "Body");
+
+    @BeforeEach
+    public void setUp() throws IOException {
+        mockWebServer = new MockWebServer();
+        mockWebServer.start();
+        UpstreamRevalidation revalidation = new UpstreamRevalidation(properties);
+        revalidation.bindTo(registry);
+        webClient = WebClient.builder()
+                .baseUrl(mockWebServer.url("/").toString())
+                .filter(revalidation)
+                .build();
+    }
+
+    @AfterEach
+    public void tearDown() throws IOException {
+        mockWebServer.shutdown();
+    }
+
+    private Post getPost() {
+        return webClient.get().uri("/posts/1").retrieve().bodyToMono(Post.class).block();
+    }
+
+    @Test
+    public void testNotModifiedReusesBody() throws Exception {
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(post))
+                .addHeader("Content-Type", "application/json")
+                .addHeader("ETag", "W/\"v1\""));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(304).addHeader("ETag", "W/\"v1\""));
+
+        Post first = getPost();
+        Post second = getPost();
+
+        // Assertions
+        assertEquals(post, first);
+        assertEquals(post, second);
+        assertNull(mockWebServer.takeRequest().getHeader("If-None-Match"));
+        assertEquals("W/\"v1\"", mockWebServer.takeRequest().getHeader("If-None-Match"));
+        assertEquals(1.0, registry.get("upstream.revalidations").tag("result", "not_modified").counter().count());
+    }
+
+    @Test
+    public void testModifiedBodyReplacesKeptOne() throws Exception {
+        Post updated = new Post(1L, 1L, "Updated", "Body");
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(post))
+                .addHeader("Content-Type", "application/json")
+                .addHeader("ETag", "\"v1\""));
+        mockWebServer.enqueue(new MockResponse()
+                .setResponseCode(200)
+                .setBody(objectMapper.writeValueAsString(updated))
+                .addHeader("Content-Type", "application/json")
+                .addHeader("ETag", "\"v2\""));
+        mockWebServer.enqueue(new MockResponse().setResponseCode(304));
+
+        getPost();
+
+        // Assertions
+        assertEquals(updated, getPost());
+        assertEquals(updated, getPost());
+        mockWebServer.takeRequest();
+        mockWebServer.takeRequest();
+        RecordedRequest third = mockWebServer.takeRequest();
+        assertEquals("\"v2\"", third.getHeader("If-None-Match"));
+        assertEquals(1.0, registry.get("upstream.revalidations").tag("result", "modified").counter().count());
+    }
+
+    @Test
+    public void testWithoutEtagNothingIsKept() throws Exception {
+        for (int i = 0; i < 2; i++) {
+            mockWebServer.enqueue(new MockResponse()
+                    .setResponseCode(200)
+                    .setBody(objectMapper.writeValueAsString(post))
+                    .addHeader("Content-Type", "application/json"));
+        }
+
+        getPost();
+        getPost();
+
+        // Assertions
+        mockWebServer.takeRequest();
+        assertNull(mockWebServer.takeRequest().getHeader("If-None-Match"));
+    }
+
+    @Test
+    public void testDisabled() throws Exception {
+        properties.setEnabled(false);
+        for (int i = 0; i < 2; i++) {
+            mockWebServer.enqueue(new MockResponse()
+                    .setResponseCode(200)
+                    .setBody(objectMapper.writeValueAsString(post))
+                    .addHeader("Content-Type", "application/json")
+                    .addHeader("ETag", "\"v1\""));
+        }
+
+        getPost();
+        getPost();
+
+        // Assertions
+        mockWebServer.takeRequest();
+        assertNull(mockWebServer.takeRequest().getHeader("If-None-Match"));
+    }
+}
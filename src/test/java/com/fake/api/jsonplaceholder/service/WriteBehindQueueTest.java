@@ -0,0 +1,202 @@
+package com.fake.api.jsonplaceholder.service;
+
+import com.fake.api.jsonplaceholder.config.WriteBehindProperties;
+import com.fake.api.jsonplaceholder.exception.NotFoundException;
+import com.fake.api.jsonplaceholder.exception.TooManyRequestsException;
+import com.fake.api.jsonplaceholder.model.Post;
+import com.fake.api.jsonplaceholder.model.WriteOperation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class WriteBehindQueueTest {
+
+    private WriteBehindProperties properties = new WriteBehindProperties();
+
+    private PostsService postsService = mock(PostsService.class);
+
+    // Each upstream update waits until the test answers it
+    private List<Sinks.One<ResponseEntity<Post>>> updates = new ArrayList<>();
+
+    private WriteBehindQueue queue;
+
+    @BeforeEach
+    public void setUp() {
+        when(postsService.updatePost(eq("1"), any())).thenAnswer(invocation -> {
+            Sinks.One<ResponseEntity<Post>> update = Sinks.one();
+            synchronized (updates) {
+                updates.add(update);
+            }
+            return update.asMono();
+        });
+        when(postsService.deletePost("1")).thenReturn(Mono.just(new ResponseEntity<>(HttpStatus.OK)));
+        when(postsService.deletePost("2")).thenReturn(Mono.error(new NotFoundException("Post not found")));
+        properties.setShutdownTimeout(Duration.ofMillis(200));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        queue.stop();
+    }
+
+    @Test
+    public void testQueuedUpdatesOfAPostAreCoalesced() throws Exception {
+        queue = start();
+        Post first = new Post(1L, 1L, "First", "Body");
+        Post second = new Post(1L, 1L, "Second", "Body");
+        Post third = new Post(1L, 1L, "Third", "Body");
+
+        // The first update is sent, the next two wait behind it in the lane of the post
+        WriteOperation firstOperation = queue.submit(WriteOperation.Type.UPDATE, "1", first);
+        awaitUpdates(1);
+        WriteOperation secondOperation = queue.submit(WriteOperation.Type.UPDATE, "1", second);
+        WriteOperation thirdOperation = queue.submit(WriteOperation.Type.UPDATE, "1", third);
+        assertEquals(WriteOperation.Status.RUNNING, queue.getOperation(firstOperation.getId()).getStatus());
+        assertEquals(WriteOperation.Status.QUEUED, queue.getOperation(secondOperation.getId()).getStatus());
+        assertEquals(1, queue.queuedCount());
+
+        // Only the latest body is sent, and both operations get its result
+        updates.get(0).tryEmitValue(new ResponseEntity<>(first, HttpStatus.OK));
+        awaitUpdates(2);
+        updates.get(1).tryEmitValue(new ResponseEntity<>(third, HttpStatus.OK));
+        awaitStatus(thirdOperation.getId(), WriteOperation.Status.SUCCEEDED);
+
+        verify(postsService, times(2)).updatePost(eq("1"), any());
+        verify(postsService).updatePost("1", third);
+        assertEquals(third, queue.getOperation(secondOperation.getId()).getPost());
+        assertEquals(first, queue.getOperation(firstOperation.getId()).getPost());
+    }
+
+    @Test
+    public void testUpdateAfterDeleteIsNotCoalesced() throws Exception {
+        queue = start();
+        Post first = new Post(1L, 1L, "First", "Body");
+        Post second = new Post(1L, 1L, "Second", "Body");
+        Post third = new Post(1L, 1L, "Third", "Body");
+
+        // An update in flight, then update, delete and update queued behind it
+        queue.submit(WriteOperation.Type.UPDATE, "1", first);
+        awaitUpdates(1);
+        queue.submit(WriteOperation.Type.UPDATE, "1", second);
+        WriteOperation delete = queue.submit(WriteOperation.Type.DELETE, "1", null);
+        WriteOperation last = queue.submit(WriteOperation.Type.UPDATE, "1", third);
+        assertEquals(3, queue.queuedCount());
+
+        updates.get(0).tryEmitValue(new ResponseEntity<>(first, HttpStatus.OK));
+        awaitUpdates(2);
+        updates.get(1).tryEmitValue(new ResponseEntity<>(second, HttpStatus.OK));
+        awaitUpdates(3);
+        updates.get(2).tryEmitValue(new ResponseEntity<>(third, HttpStatus.OK));
+        awaitStatus(last.getId(), WriteOperation.Status.SUCCEEDED);
+
+        // The last update reaches the upstream after the delete
+        InOrder inOrder = inOrder(postsService);
+        inOrder.verify(postsService).updatePost("1", first);
+        inOrder.verify(postsService).updatePost("1", second);
+        inOrder.verify(postsService).deletePost("1");
+        inOrder.verify(postsService).updatePost("1", third);
+        assertEquals(WriteOperation.Status.SUCCEEDED, queue.getOperation(delete.getId()).getStatus());
+    }
+
+    @Test
+    public void testStopSendsQueuedWrites() throws Exception {
+        properties.setShutdownTimeout(Duration.ofSeconds(5));
+        properties.setConcurrency(1);
+        queue = start();
+
+        // An update in flight and a delete queued behind it when the service stops
+        WriteOperation update = queue.submit(WriteOperation.Type.UPDATE, "1", new Post(1L, 1L, "First", "Body"));
+        awaitUpdates(1);
+        WriteOperation delete = queue.submit(WriteOperation.Type.DELETE, "1", null);
+        Mono.delay(Duration.ofMillis(100))
+                .subscribe(tick -> updates.get(0).tryEmitValue(new ResponseEntity<>(HttpStatus.OK)));
+        queue.stop();
+
+        // Assertions
+        assertEquals(WriteOperation.Status.SUCCEEDED, queue.getOperation(update.getId()).getStatus());
+        assertEquals(WriteOperation.Status.SUCCEEDED, queue.getOperation(delete.getId()).getStatus());
+        assertThrows(TooManyRequestsException.class, () -> queue.submit(WriteOperation.Type.DELETE, "1", null));
+    }
+
+    @Test
+    public void testStopFailsWritesLeftAfterTimeout() throws Exception {
+        properties.setConcurrency(1);
+        queue = start();
+
+        // The update never answers, so neither write completes before the timeout
+        WriteOperation update = queue.submit(WriteOperation.Type.UPDATE, "1", new Post(1L, 1L, "First", "Body"));
+        awaitUpdates(1);
+        WriteOperation delete = queue.submit(WriteOperation.Type.DELETE, "1", null);
+        queue.stop();
+
+        // Assertions
+        assertEquals(WriteOperation.Status.FAILED, queue.getOperation(update.getId()).getStatus());
+        assertEquals(WriteOperation.Status.FAILED, queue.getOperation(delete.getId()).getStatus());
+        assertEquals("Write not completed, the service stopped", queue.getOperation(delete.getId()).getError());
+    }
+
+    @Test
+    public void testFailedWrite() throws Exception {
+        queue = start();
+
+        WriteOperation operation = queue.submit(WriteOperation.Type.DELETE, "2", null);
+        awaitStatus(operation.getId(), WriteOperation.Status.FAILED);
+
+        assertEquals("Post not found", queue.getOperation(operation.getId()).getError());
+        assertThrows(NotFoundException.class, () -> queue.getOperation("unknown"));
+    }
+
+    @Test
+    public void testFullQueueRejects() throws Exception {
+        properties.setQueueSize(1);
+        properties.setConcurrency(1);
+        queue = start();
+
+        // One update in flight, one queued behind it, the next write does not fit
+        queue.submit(WriteOperation.Type.UPDATE, "1", new Post(1L, 1L, "First", "Body"));
+        awaitUpdates(1);
+        queue.submit(WriteOperation.Type.DELETE, "1", null);
+
+        assertThrows(TooManyRequestsException.class,
+                () -> queue.submit(WriteOperation.Type.CREATE, null, new Post(null, 1L, "New", "Body")));
+    }
+
+    private WriteBehindQueue start() {
+        WriteBehindQueue started = new WriteBehindQueue(properties, postsService);
+        started.start();
+        return started;
+    }
+
+    private void awaitUpdates(int count) throws InterruptedException {
+        for (int i = 0; i < 100 && updates.size() < count; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(count, updates.size());
+    }
+
+    private void awaitStatus(String id, WriteOperation.Status status) throws InterruptedException {
+        for (int i = 0; i < 100 && queue.getOperation(id).getStatus() != status; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(status, queue.getOperation(id).getStatus());
+    }
+}